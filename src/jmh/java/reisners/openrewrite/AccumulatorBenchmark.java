@@ -0,0 +1,127 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.java.internal.TypesInUse;
+import org.openrewrite.java.marker.JavaProject;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.java.tree.JavaSourceFile;
+import org.openrewrite.maven.tree.GroupArtifact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the scan phase ({@link UnusedDependencies.Accumulator#recordTypesInUse}) and of the verdicts
+ * ({@link UnusedDependencies.Accumulator#isInUse}) over a {@link SyntheticCorpus}.
+ * Each invocation processes the whole corpus.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AccumulatorBenchmark {
+
+    @Param({"1", "20"})
+    int moduleCount;
+
+    @Param({"50", "300"})
+    int dependencyCount;
+
+    @Param({"200", "2000"})
+    int typesPerDependency;
+
+    @Param({"100"})
+    int filesPerModule;
+
+    @Param({"50"})
+    int typesPerFile;
+
+    private SyntheticCorpus corpus;
+    private final List<TypesInUse> typesInUse = new ArrayList<>();
+    private final List<JavaProject> projects = new ArrayList<>();
+    private final List<JavaSourceSet> sourceSets = new ArrayList<>();
+    private UnusedDependencies.Accumulator scanned;
+    private final TypeTableCache typeTableCache = new TypeTableCache(Long.MAX_VALUE);
+
+    @Setup(Level.Trial)
+    public void setup() {
+        corpus = new SyntheticCorpus(moduleCount, dependencyCount, typesPerDependency, filesPerModule, typesPerFile, 42);
+        for (JavaSourceFile cu : corpus.getCompilationUnits()) {
+            typesInUse.add(cu.getTypesInUse());
+            projects.add(cu.getMarkers().findFirst(JavaProject.class).orElseThrow(IllegalStateException::new));
+            sourceSets.add(cu.getMarkers().findFirst(JavaSourceSet.class).orElseThrow(IllegalStateException::new));
+        }
+        scanned = newAccumulator();
+        recordAll(scanned);
+        recordAll(new UnusedDependencies.Accumulator(null, null, null, false, null, typeTableCache));
+    }
+
+    /**
+     * Includes building the classpath of every source set.
+     */
+    @Benchmark
+    public UnusedDependencies.Accumulator scanCold() {
+        UnusedDependencies.Accumulator acc = newAccumulator();
+        recordAll(acc);
+        return acc;
+    }
+
+    /**
+     * As {@link #scanCold()}, for a later run in the same JVM finding the types of all artifact versions in the
+     * {@link TypeTableCache}, so that only their packages are indexed.
+     */
+    @Benchmark
+    public UnusedDependencies.Accumulator scanColdWithTypeTableCache() {
+        UnusedDependencies.Accumulator acc = new UnusedDependencies.Accumulator(null, null, null, false, null, typeTableCache);
+        recordAll(acc);
+        return acc;
+    }
+
+    /**
+     * Classpaths are already known, as for all but the first file of each source set.
+     */
+    @Benchmark
+    public UnusedDependencies.Accumulator scanWarm() {
+        recordAll(scanned);
+        return scanned;
+    }
+
+    @Benchmark
+    public void isInUse(Blackhole blackhole) {
+        for (JavaProject project : corpus.getProjects()) {
+            for (GroupArtifact ga : corpus.getDependencies()) {
+                blackhole.consume(scanned.isInUse(project, ga));
+            }
+        }
+    }
+
+    private void recordAll(UnusedDependencies.Accumulator acc) {
+        for (int i = 0; i < typesInUse.size(); i++) {
+            acc.recordTypesInUse(typesInUse.get(i), projects.get(i), sourceSets.get(i));
+        }
+    }
+
+    private static UnusedDependencies.Accumulator newAccumulator() {
+        return new UnusedDependencies().getInitialValue(new InMemoryExecutionContext());
+    }
+}
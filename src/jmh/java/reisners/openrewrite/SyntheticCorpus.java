@@ -0,0 +1,169 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import lombok.Getter;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+import org.openrewrite.gradle.marker.GradleDependencyConfiguration;
+import org.openrewrite.gradle.marker.GradleProject;
+import org.openrewrite.java.JavaIsoVisitor;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.marker.JavaProject;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.java.tree.JavaSourceFile;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.marker.Markers;
+import org.openrewrite.maven.tree.Dependency;
+import org.openrewrite.maven.tree.GroupArtifact;
+import org.openrewrite.maven.tree.GroupArtifactVersion;
+import org.openrewrite.text.PlainText;
+
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Generates modules with classpaths of synthetic artifacts, type attributed source files referencing a
+ * realistic mix of JDK, module-local and classpath types, and a Gradle build file per module declaring
+ * all artifacts of its classpath.
+ */
+@Getter
+public class SyntheticCorpus {
+    private static final String[] JDK_TYPES = {
+            "java.lang.String", "java.lang.Object", "java.lang.Integer", "java.lang.Long", "java.lang.Boolean",
+            "java.util.List", "java.util.Map", "java.util.Set", "java.util.ArrayList", "java.util.HashMap",
+            "java.util.Optional", "java.util.function.Function", "java.util.stream.Stream", "java.io.IOException",
+            "java.time.Instant", "java.nio.file.Path"
+    };
+
+    private final List<JavaProject> projects = new ArrayList<>();
+    private final List<JavaSourceSet> sourceSets = new ArrayList<>();
+    private final List<GroupArtifact> dependencies = new ArrayList<>();
+    private final List<JavaSourceFile> compilationUnits = new ArrayList<>();
+    private final List<SourceFile> buildFiles = new ArrayList<>();
+
+    /**
+     * @param typesPerFile the number of type references per source file, about half of them to classpath types.
+     *                     Classpath references are skewed towards the first artifacts, so that the last artifacts
+     *                     of the classpath tend to be unused.
+     */
+    public SyntheticCorpus(int moduleCount, int dependencyCount, int typesPerDependency,
+                           int filesPerModule, int typesPerFile, long seed) {
+        Random random = new Random(seed);
+        Map<String, List<JavaType.FullyQualified>> gavToTypes = new LinkedHashMap<>();
+        List<List<JavaType.FullyQualified>> typesByDependency = new ArrayList<>();
+        for (int d = 0; d < dependencyCount; d++) {
+            GroupArtifact ga = new GroupArtifact("org.synthetic" + d, "artifact" + d);
+            List<JavaType.FullyQualified> types = new ArrayList<>(typesPerDependency);
+            for (int t = 0; t < typesPerDependency; t++) {
+                types.add(JavaType.ShallowClass.build(ga.getGroupId() + ".pkg" + t % 20 + ".Type" + t));
+            }
+            dependencies.add(ga);
+            typesByDependency.add(types);
+            gavToTypes.put(ga.getGroupId() + ":" + ga.getArtifactId() + ":1.0", types);
+        }
+
+        J.CompilationUnit template = template(typesPerFile);
+        for (int m = 0; m < moduleCount; m++) {
+            JavaProject project = new JavaProject(Tree.randomId(), "module" + m, null);
+            JavaSourceSet sourceSet = new JavaSourceSet(Tree.randomId(), "main", Collections.emptyList(), gavToTypes);
+            projects.add(project);
+            sourceSets.add(sourceSet);
+            for (int f = 0; f < filesPerModule; f++) {
+                List<JavaType.FullyQualified> referenced = new ArrayList<>(typesPerFile);
+                for (int t = 0; t < typesPerFile; t++) {
+                    int kind = random.nextInt(10);
+                    if (kind < 4) {
+                        referenced.add(JavaType.ShallowClass.build(JDK_TYPES[random.nextInt(JDK_TYPES.length)]));
+                    } else if (kind < 5) {
+                        referenced.add(JavaType.ShallowClass.build("com.example.module" + m + ".Local" + random.nextInt(100)));
+                    } else {
+                        double skewed = random.nextDouble();
+                        List<JavaType.FullyQualified> types = typesByDependency.get((int) (skewed * skewed * dependencyCount));
+                        referenced.add(types.get(random.nextInt(types.size())));
+                    }
+                }
+                compilationUnits.add(retype(template, referenced)
+                        .withId(Tree.randomId())
+                        .withSourcePath(Paths.get("module" + m, "src/main/java/Synthetic" + f + ".java"))
+                        .withMarkers(Markers.build(Arrays.asList(project, sourceSet))));
+            }
+            buildFiles.add(buildFile(project));
+        }
+    }
+
+    public List<SourceFile> getSourceFiles() {
+        List<SourceFile> sourceFiles = new ArrayList<>(buildFiles);
+        sourceFiles.addAll(compilationUnits);
+        return sourceFiles;
+    }
+
+    private static J.CompilationUnit template(int typesPerFile) {
+        String fields = IntStream.range(0, typesPerFile)
+                .mapToObj(i -> "    Object f" + i + ";")
+                .collect(Collectors.joining("\n"));
+        return JavaParser.fromJavaVersion().build()
+                .parse(new InMemoryExecutionContext(), "class Synthetic {\n" + fields + "\n}")
+                .map(J.CompilationUnit.class::cast)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+    }
+
+    /**
+     * Assigns the referenced types to the field type expressions of the template in turn.
+     */
+    private static J.CompilationUnit retype(J.CompilationUnit template, List<JavaType.FullyQualified> referenced) {
+        Iterator<JavaType.FullyQualified> types = referenced.iterator();
+        return (J.CompilationUnit) new JavaIsoVisitor<Integer>() {
+            @Override
+            public J.Identifier visitIdentifier(J.Identifier identifier, Integer p) {
+                if ("Object".equals(identifier.getSimpleName()) && types.hasNext()) {
+                    return identifier.withType(types.next());
+                }
+                return identifier;
+            }
+        }.visitNonNull(template, 0);
+    }
+
+    private SourceFile buildFile(JavaProject project) {
+        List<Dependency> requested = dependencies.stream()
+                .map(ga -> Dependency.builder()
+                        .gav(new GroupArtifactVersion(ga.getGroupId(), ga.getArtifactId(), "1.0"))
+                        .build())
+                .collect(Collectors.toList());
+        GradleDependencyConfiguration implementation = new GradleDependencyConfiguration(
+                "implementation", null, true, false, false,
+                Collections.emptyList(), requested, Collections.emptyList(), null, null);
+        GradleProject gradleProject = GradleProject.builder()
+                .id(Tree.randomId())
+                .name(project.getProjectName())
+                .path(":" + project.getProjectName())
+                .plugins(Collections.emptyList())
+                .mavenRepositories(Collections.emptyList())
+                .mavenPluginRepositories(Collections.emptyList())
+                .nameToConfiguration(Collections.singletonMap("implementation", implementation))
+                .build();
+        return PlainText.builder()
+                .sourcePath(Paths.get(project.getProjectName(), "build.gradle"))
+                .text("")
+                .markers(Markers.build(Arrays.asList(project, gradleProject)))
+                .build();
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openrewrite.java.tree.JavaSourceFile;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.maven.tree.GroupArtifact;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolution of the type references of a {@link SyntheticCorpus} module to artifacts, straight from the
+ * {@link SymbolTable} and with the {@link TypeFilter} of the classpath discarding JDK and module-local types first.
+ * Each invocation resolves all references of the module once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeFilterBenchmark {
+
+    @Param({"50", "300"})
+    int dependencyCount;
+
+    @Param({"200", "2000"})
+    int typesPerDependency;
+
+    private final List<String> references = new ArrayList<>();
+    private final SymbolTable symbols = new SymbolTable();
+    private TypeFilter filter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SyntheticCorpus corpus = new SyntheticCorpus(1, dependencyCount, typesPerDependency, 100, 50, 42);
+        List<ArtifactTypes> typeTables = new ArrayList<>();
+        int packageCount = 0;
+        for (Map.Entry<String, List<JavaType.FullyQualified>> gavToTypes : corpus.getSourceSets().get(0).getGavToTypes().entrySet()) {
+            String[] parts = gavToTypes.getKey().split(":");
+            List<String> typeNames = new ArrayList<>();
+            for (JavaType.FullyQualified type : gavToTypes.getValue()) {
+                typeNames.add(type.getFullyQualifiedName());
+            }
+            ArtifactTypes types = ArtifactTypes.of(typeNames);
+            symbols.addTypes(types, symbols.artifactId(new GroupArtifact(parts[0], parts[1])));
+            typeTables.add(types);
+            packageCount += types.packages().length;
+        }
+        filter = new TypeFilter(packageCount);
+        for (ArtifactTypes types : typeTables) {
+            for (String packageName : types.packages()) {
+                filter.addPackage(packageName);
+            }
+        }
+        for (JavaSourceFile cu : corpus.getCompilationUnits()) {
+            for (JavaType type : cu.getTypesInUse().getTypesInUse()) {
+                if (type instanceof JavaType.FullyQualified) {
+                    references.add(((JavaType.FullyQualified) type).getFullyQualifiedName());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void symbolTable(Blackhole blackhole) {
+        for (String fqn : references) {
+            blackhole.consume(symbols.artifactIdsOf(fqn));
+        }
+    }
+
+    @Benchmark
+    public void filteredSymbolTable(Blackhole blackhole) {
+        for (String fqn : references) {
+            blackhole.consume(filter.mightContain(fqn) ? symbols.artifactIdsOf(fqn) : null);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.openjdk.jmh.annotations.*;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.RecipeRun;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of running the recipe, scanning and visiting, over a {@link SyntheticCorpus}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UnusedDependenciesBenchmark {
+
+    @Param({"1", "20"})
+    int moduleCount;
+
+    @Param({"50", "300"})
+    int dependencyCount;
+
+    @Param({"2000"})
+    int typesPerDependency;
+
+    @Param({"100"})
+    int filesPerModule;
+
+    @Param({"50"})
+    int typesPerFile;
+
+    private SyntheticCorpus corpus;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        corpus = new SyntheticCorpus(moduleCount, dependencyCount, typesPerDependency, filesPerModule, typesPerFile, 42);
+    }
+
+    @Benchmark
+    public RecipeRun run() {
+        return new UnusedDependencies().run(new InMemoryLargeSourceSet(corpus.getSourceFiles()), new InMemoryExecutionContext());
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.jspecify.annotations.Nullable;
+import reisners.openrewrite.index.ArtifactIndex;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The fully qualified names of the types of one artifact version and the packages they are in. Immutable, so that
+ * the {@link TypeTableCache} can hand the same instance to the symbol tables of all runs in a JVM, which only
+ * index its packages and ask it whether a type of such a package is among its names.
+ * <p>
+ * Names from type tables are kept in an open addressing table probed with {@link String#hashCode()}, which the names
+ * looked up cache. Names found by the class index are not copied, but looked up in the mapped {@link ArtifactIndex}.
+ */
+public final class ArtifactTypes {
+    private final String[] table;
+    private final @Nullable ArtifactIndex index;
+    private final int size;
+    private final String[] packages;
+
+    private ArtifactTypes(String[] table, @Nullable ArtifactIndex index, int size, String[] packages) {
+        this.table = table;
+        this.index = index;
+        this.size = size;
+        this.packages = packages;
+    }
+
+    public static ArtifactTypes of(Collection<String> typeNames) {
+        return of(typeNames, null);
+    }
+
+    /**
+     * @param index the classes of the artifact version's jar, if indexed, of which only the packages are decoded
+     */
+    public static ArtifactTypes of(Collection<String> typeNames, @Nullable ArtifactIndex index) {
+        int length = 2;
+        while (typeNames.size() > length / 2) {
+            length <<= 1;
+        }
+        String[] table = new String[length];
+        int size = index == null ? 0 : index.size();
+        Set<String> packages = index == null ? new LinkedHashSet<>() : index.packages();
+        for (String typeName : typeNames) {
+            if ((index == null || !index.contains(typeName)) && insert(table, typeName)) {
+                size++;
+                packages.add(packageName(typeName));
+            }
+        }
+        return new ArtifactTypes(table, index, size, packages.toArray(new String[0]));
+    }
+
+    public boolean contains(String fqn) {
+        int mask = table.length - 1;
+        for (int i = slot(fqn.hashCode(), mask); table[i] != null; i = (i + 1) & mask) {
+            if (table[i].equals(fqn)) {
+                return true;
+            }
+        }
+        return index != null && index.contains(fqn);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the distinct packages of the types, not to be modified
+     */
+    String[] packages() {
+        return packages;
+    }
+
+    /**
+     * A rough estimate of the heap retained, including the names, which may be shared with the type attribution
+     * of the source files, but not the mapped class index.
+     */
+    long estimatedRetainedBytes() {
+        long bytes = 24 + 16 + table.length * 4L + 16 + packages.length * 4L;
+        for (String name : table) {
+            if (name != null) {
+                // the string with a compact latin-1 value
+                bytes += 24 + 16 + name.length();
+            }
+        }
+        for (String packageName : packages) {
+            bytes += 24 + 16 + packageName.length();
+        }
+        return bytes;
+    }
+
+    /**
+     * @return the package of the type, or the empty string for the default package
+     */
+    static String packageName(String fqn) {
+        int dot = fqn.lastIndexOf('.');
+        return dot < 0 ? "" : fqn.substring(0, dot);
+    }
+
+    private static boolean insert(String[] table, String typeName) {
+        int mask = table.length - 1;
+        int i = slot(typeName.hashCode(), mask);
+        while (table[i] != null) {
+            if (table[i].equals(typeName)) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = typeName;
+        return true;
+    }
+
+    private static int slot(int hash, int mask) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import lombok.Value;
+import lombok.With;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.maven.tree.GroupArtifact;
+import reisners.openrewrite.table.UnusedDependenciesMetrics;
+import reisners.openrewrite.table.UnusedDependencyReport;
+import reisners.openrewrite.table.UsedUndeclaredDependencyReport;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The findings for the dependencies of one project.
+ */
+@Value
+public class DependencyEvaluation {
+    List<UnusedDependencyReport.Row> unusedDependencies;
+    List<UsedUndeclaredDependencyReport.Row> usedUndeclaredDependencies;
+
+    /**
+     * The declared dependencies not used by any source set nor providing a used transitive dependency, which can be
+     * removed from the build file.
+     */
+    Set<GroupArtifact> removableDependencies;
+
+    int evaluatedDependencies;
+
+    @With
+    UnusedDependenciesMetrics.@Nullable Row metrics;
+}
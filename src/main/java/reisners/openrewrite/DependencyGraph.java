@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.openrewrite.maven.tree.GroupArtifact;
+import org.openrewrite.maven.tree.ResolvedDependency;
+
+import java.util.*;
+
+/**
+ * The resolved dependencies of a project as a list of distinct artifacts in breadth first order starting with the
+ * direct dependencies, so that nodes {@code [0, directCount)} are the direct dependencies and each transitive
+ * dependency is attributed to the direct dependency through which it is reached on a shortest path.
+ * <p>
+ * Edges are only followed while numbering the nodes and are not kept, as nothing but that attribution is needed.
+ */
+final class DependencyGraph {
+    private final GroupArtifact[] nodes;
+    private final int[] via;
+    private final int directCount;
+
+    private DependencyGraph(GroupArtifact[] nodes, int[] via, int directCount) {
+        this.nodes = nodes;
+        this.via = via;
+        this.directCount = directCount;
+    }
+
+    static DependencyGraph build(Collection<ResolvedDependency> directDependencies) {
+        Map<GroupArtifact, Integer> ids = new HashMap<>();
+        List<ResolvedDependency> queue = new ArrayList<>();
+        int[] via = new int[Math.max(16, directDependencies.size())];
+        for (ResolvedDependency direct : directDependencies) {
+            if (ids.putIfAbsent(direct.getGav().asGroupArtifact(), queue.size()) == null) {
+                via[queue.size()] = queue.size();
+                queue.add(direct);
+            }
+        }
+        int directCount = queue.size();
+        for (int n = 0; n < queue.size(); n++) {
+            for (ResolvedDependency child : queue.get(n).getDependencies()) {
+                if (ids.putIfAbsent(child.getGav().asGroupArtifact(), queue.size()) == null) {
+                    if (queue.size() == via.length) {
+                        via = Arrays.copyOf(via, via.length * 2);
+                    }
+                    via[queue.size()] = via[n];
+                    queue.add(child);
+                }
+            }
+        }
+
+        GroupArtifact[] nodes = new GroupArtifact[queue.size()];
+        for (int n = 0; n < nodes.length; n++) {
+            nodes[n] = queue.get(n).getGav().asGroupArtifact();
+        }
+        return new DependencyGraph(nodes, Arrays.copyOf(via, nodes.length), directCount);
+    }
+
+    /**
+     * A graph of direct dependencies only, for build tools that report what is declared but not how it resolves.
+     */
+    static DependencyGraph ofDirect(Collection<GroupArtifact> directDependencies) {
+        Set<GroupArtifact> distinct = new LinkedHashSet<>(directDependencies);
+        GroupArtifact[] nodes = distinct.toArray(new GroupArtifact[0]);
+        int[] via = new int[nodes.length];
+        for (int n = 0; n < via.length; n++) {
+            via[n] = n;
+        }
+        return new DependencyGraph(nodes, via, nodes.length);
+    }
+
+    int size() {
+        return nodes.length;
+    }
+
+    boolean isDirect(int node) {
+        return node < directCount;
+    }
+
+    GroupArtifact artifact(int node) {
+        return nodes[node];
+    }
+
+    /**
+     * @return the direct dependency through which the node is reached first.
+     */
+    int via(int node) {
+        return via[node];
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.gradle.marker.GradleDependencyConfiguration;
+import org.openrewrite.gradle.marker.GradleProject;
+import org.openrewrite.gradle.trait.GradleDependency;
+import org.openrewrite.groovy.GroovyIsoVisitor;
+import org.openrewrite.groovy.tree.G;
+import org.openrewrite.internal.ListUtils;
+import org.openrewrite.java.tree.J;
+import org.openrewrite.maven.tree.GroupArtifact;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes the declarations of several dependencies from a Groovy build script in one pass and updates the
+ * {@link GradleProject} marker once for all of them.
+ */
+class RemoveGradleDependencies extends GroovyIsoVisitor<ExecutionContext> {
+    private final Set<GroupArtifact> dependencies;
+    private final GradleDependency.Matcher matcher = new GradleDependency.Matcher();
+
+    RemoveGradleDependencies(Set<GroupArtifact> dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    @Override
+    public G.@NonNull CompilationUnit visitCompilationUnit(G.@NonNull CompilationUnit cu, @NonNull ExecutionContext ctx) {
+        GradleProject gradleProject = cu.getMarkers().findFirst(GradleProject.class).orElse(null);
+        if (gradleProject == null) {
+            return cu;
+        }
+        G.CompilationUnit g = super.visitCompilationUnit(cu, ctx);
+        if (g != cu) {
+            g = g.withMarkers(g.getMarkers().setByType(updateGradleModel(gradleProject)));
+        }
+        return g;
+    }
+
+    @Override
+    public J.@Nullable Return visitReturn(J.@NonNull Return _return, @NonNull ExecutionContext ctx) {
+        boolean dependencyReturned = _return.getExpression() instanceof J.MethodInvocation &&
+                                     isRemoved(matcher.get(_return.getExpression(), getCursor()).orElse(null));
+        J.Return r = super.visitReturn(_return, ctx);
+        return dependencyReturned && r.getExpression() == null ? null : r;
+    }
+
+    @Override
+    public J.@Nullable MethodInvocation visitMethodInvocation(J.@NonNull MethodInvocation method, @NonNull ExecutionContext ctx) {
+        J.MethodInvocation m = super.visitMethodInvocation(method, ctx);
+        return isRemoved(matcher.get(getCursor()).orElse(null)) ? null : m;
+    }
+
+    private boolean isRemoved(@Nullable GradleDependency dependency) {
+        return dependency != null && dependencies.contains(dependency.getResolvedDependency().getGav().asGroupArtifact());
+    }
+
+    private GradleProject updateGradleModel(GradleProject gradleProject) {
+        Map<String, GradleDependencyConfiguration> nameToConfiguration = new LinkedHashMap<>();
+        for (GradleDependencyConfiguration configuration : gradleProject.getConfigurations()) {
+            nameToConfiguration.put(configuration.getName(), configuration
+                    .withRequested(ListUtils.map(configuration.getRequested(),
+                            dependency -> dependencies.contains(dependency.getGav().asGroupArtifact()) ? null : dependency))
+                    .withDirectResolved(ListUtils.map(configuration.getDirectResolved(),
+                            dependency -> dependencies.contains(dependency.getGav().asGroupArtifact()) ? null : dependency)));
+        }
+        return gradleProject.withNameToConfiguration(nameToConfiguration);
+    }
+}
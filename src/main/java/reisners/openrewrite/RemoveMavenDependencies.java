@@ -0,0 +1,63 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.jspecify.annotations.NonNull;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.maven.MavenIsoVisitor;
+import org.openrewrite.maven.tree.GroupArtifact;
+import org.openrewrite.xml.RemoveContentVisitor;
+import org.openrewrite.xml.tree.Xml;
+
+import java.util.Set;
+
+/**
+ * Removes the declarations of several dependencies from a pom in one pass, so that the Maven model is resolved
+ * again only once rather than once per dependency.
+ * <p>
+ * The model is updated after all removals, which are themselves only applied after the visit.
+ */
+class RemoveMavenDependencies extends MavenIsoVisitor<ExecutionContext> {
+    private final Set<GroupArtifact> dependencies;
+    private boolean removed;
+
+    RemoveMavenDependencies(Set<GroupArtifact> dependencies) {
+        this.dependencies = dependencies;
+    }
+
+    @Override
+    public Xml.@NonNull Document visitDocument(Xml.@NonNull Document document, @NonNull ExecutionContext ctx) {
+        Xml.Document d = super.visitDocument(document, ctx);
+        if (removed) {
+            maybeUpdateModel();
+        }
+        return d;
+    }
+
+    @Override
+    public Xml.@NonNull Tag visitTag(Xml.@NonNull Tag tag, @NonNull ExecutionContext ctx) {
+        if (isDependencyTag()) {
+            for (GroupArtifact ga : dependencies) {
+                if (isDependencyTag(ga.getGroupId(), ga.getArtifactId())) {
+                    doAfterVisit(new RemoveContentVisitor<>(tag, true, true));
+                    removed = true;
+                    return tag;
+                }
+            }
+        }
+        return super.visitTag(tag, ctx);
+    }
+}
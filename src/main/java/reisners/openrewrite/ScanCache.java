@@ -0,0 +1,240 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.Checksum;
+import org.openrewrite.SourceFile;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers the types referenced by each source file across recipe runs, keyed by source path, the checksum the
+ * parser recorded for the file's content and a checksum of its source set's classpath, so that files unchanged since
+ * the previous run need not be analyzed again. A changed dependency version changes the types a file's references
+ * are attributed to, so it invalidates the entries of the source sets having it on their classpath.
+ * <p>
+ * The cache is a single binary file holding a dictionary of type names followed by the entries, each referring
+ * to its types by their index into the dictionary. The file is replaced atomically, so runs sharing a cache
+ * directory on a local filesystem see either the previous or the new content, never a partially written file.
+ * A file that cannot be read is treated like an empty cache.
+ */
+public final class ScanCache {
+    static final String FILE_NAME = "unused-dependencies-scan.bin";
+
+    private static final int MAGIC = 0x55445343;
+    private static final int VERSION = 2;
+
+    private final Path file;
+    private final Map<String, Entry> previous;
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    private ScanCache(Path file, Map<String, Entry> previous) {
+        this.file = file;
+        this.previous = previous;
+    }
+
+    public static ScanCache open(Path directory) {
+        Path file = directory.resolve(FILE_NAME);
+        Map<String, Entry> previous = Collections.emptyMap();
+        if (Files.isRegularFile(file)) {
+            try {
+                previous = read(file);
+            } catch (IOException | RuntimeException e) {
+                // unreadable or from an incompatible version, start over
+                previous = Collections.emptyMap();
+            }
+        }
+        return new ScanCache(file, previous);
+    }
+
+    /**
+     * @return the types referenced by the source file when it was last scanned, or null if it has not been
+     * scanned before or it or its classpath has changed since.
+     */
+    public String @Nullable [] get(String sourcePath, byte[] checksum, byte[] classpathChecksum) {
+        Entry entry = previous.get(sourcePath);
+        if (entry == null || !Arrays.equals(entry.checksum, checksum) ||
+            !Arrays.equals(entry.classpathChecksum, classpathChecksum)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        current.put(sourcePath, entry);
+        return entry.types;
+    }
+
+    public void put(String sourcePath, byte[] checksum, byte[] classpathChecksum, String[] types) {
+        current.put(sourcePath, new Entry(checksum, classpathChecksum, types));
+    }
+
+    /**
+     * Keeps the entry of a source file that exists but was not analyzed in this run, so that saving does not drop it.
+     */
+    public void retain(String sourcePath) {
+        Entry entry = previous.get(sourcePath);
+        if (entry != null) {
+            current.putIfAbsent(sourcePath, entry);
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Writes the entries of all source files seen in this run, dropping those of files that no longer exist.
+     */
+    public void save() throws IOException {
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), FILE_NAME, ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                write(out);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return the checksum recorded by the parser, or null if there is none, in which case the source file is not
+     * cached, as digesting the printed file would cost about as much as analyzing it
+     */
+    public static byte @Nullable [] checksum(SourceFile sourceFile) {
+        Checksum checksum = sourceFile.getChecksum();
+        return checksum == null ? null : checksum.getValue();
+    }
+
+    /**
+     * Digests the coordinates of the artifact versions on a classpath, in whatever order they are given.
+     */
+    public static byte[] classpathChecksum(Collection<String> gavs) {
+        String[] sorted = gavs.toArray(new String[0]);
+        Arrays.sort(sorted);
+        try {
+            MessageDigest md5 = MessageDigest.getInstance("MD5");
+            for (String gav : sorted) {
+                md5.update(gav.getBytes(StandardCharsets.UTF_8));
+                md5.update((byte) '\n');
+            }
+            return md5.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void write(DataOutputStream out) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (Entry entry : current.values()) {
+            for (String type : entry.types) {
+                dictionary.putIfAbsent(type, dictionary.size());
+            }
+        }
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(dictionary.size());
+        for (String type : dictionary.keySet()) {
+            writeString(out, type);
+        }
+        out.writeInt(current.size());
+        for (Map.Entry<String, Entry> entry : current.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeShort(entry.getValue().checksum.length);
+            out.write(entry.getValue().checksum);
+            out.writeShort(entry.getValue().classpathChecksum.length);
+            out.write(entry.getValue().classpathChecksum);
+            out.writeInt(entry.getValue().types.length);
+            for (String type : entry.getValue().types) {
+                out.writeInt(dictionary.get(type));
+            }
+        }
+    }
+
+    private static Map<String, Entry> read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a scan cache of version " + VERSION + ": " + file);
+            }
+            String[] dictionary = new String[buffer.getInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = readString(buffer);
+            }
+            int entryCount = buffer.getInt();
+            Map<String, Entry> entries = new HashMap<>(entryCount * 4 / 3 + 1);
+            for (int i = 0; i < entryCount; i++) {
+                String sourcePath = readString(buffer);
+                byte[] checksum = new byte[buffer.getShort()];
+                buffer.get(checksum);
+                byte[] classpathChecksum = new byte[buffer.getShort()];
+                buffer.get(classpathChecksum);
+                String[] types = new String[buffer.getInt()];
+                for (int t = 0; t < types.length; t++) {
+                    types[t] = dictionary[buffer.getInt()];
+                }
+                entries.put(sourcePath, new Entry(checksum, classpathChecksum, types));
+            }
+            return entries;
+        } catch (BufferUnderflowException e) {
+            throw new EOFException("Truncated scan cache: " + file);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static final class Entry {
+        final byte[] checksum;
+        final byte[] classpathChecksum;
+        final String[] types;
+
+        Entry(byte[] checksum, byte[] classpathChecksum, String[] types) {
+            this.checksum = checksum;
+            this.classpathChecksum = classpathChecksum;
+            this.types = types;
+        }
+    }
+}
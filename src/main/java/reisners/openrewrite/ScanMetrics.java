@@ -0,0 +1,119 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openrewrite.java.marker.JavaProject;
+import reisners.openrewrite.table.UnusedDependenciesMetrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Timings and counts of the phases of finding unused dependencies, per project for the
+ * {@link UnusedDependenciesMetrics} data table and aggregated as Micrometer meters.
+ */
+public final class ScanMetrics {
+    private final Map<JavaProject, ProjectMetrics> projectMetrics = new ConcurrentHashMap<>();
+
+    private final Timer scanTimer;
+    private final Timer classpathTimer;
+    private final Timer evaluationTimer;
+    private final Counter sourceFiles;
+    private final DistributionSummary referencedTypes;
+    private final DistributionSummary retainedBytes;
+
+    public ScanMetrics(MeterRegistry registry) {
+        scanTimer = Timer.builder("rewrite.unused.dependencies.scan")
+                .description("Time spent recording the types in use of a source file")
+                .publishPercentileHistogram()
+                .register(registry);
+        classpathTimer = Timer.builder("rewrite.unused.dependencies.classpath")
+                .description("Time spent adding the types of a source set's classpath to the symbol table")
+                .register(registry);
+        evaluationTimer = Timer.builder("rewrite.unused.dependencies.evaluation")
+                .description("Time spent evaluating the dependencies of a project")
+                .publishPercentileHistogram()
+                .register(registry);
+        sourceFiles = Counter.builder("rewrite.unused.dependencies.source.files")
+                .description("Source files scanned")
+                .register(registry);
+        referencedTypes = DistributionSummary.builder("rewrite.unused.dependencies.referenced.types")
+                .description("Types referenced by a source file")
+                .register(registry);
+        retainedBytes = DistributionSummary.builder("rewrite.unused.dependencies.symbols")
+                .description("Estimated heap retained by the symbol table when a project is evaluated")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    void sourceFileScanned(JavaProject project, int types, long typesInUseNanos, long scanNanos) {
+        ProjectMetrics metrics = metrics(project);
+        metrics.sourceFiles.increment();
+        metrics.referencedTypes.add(types);
+        metrics.typesInUseNanos.add(typesInUseNanos);
+        metrics.scanNanos.add(scanNanos);
+        sourceFiles.increment();
+        referencedTypes.record(types);
+        scanTimer.record(scanNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void classpathResolved(JavaProject project, long nanos) {
+        metrics(project).classpathNanos.add(nanos);
+        classpathTimer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    UnusedDependenciesMetrics.Row projectEvaluated(JavaProject project, int dependencies, long nanos, long retainedBytes) {
+        evaluationTimer.record(nanos, TimeUnit.NANOSECONDS);
+        this.retainedBytes.record(retainedBytes);
+        ProjectMetrics metrics = metrics(project);
+        return new UnusedDependenciesMetrics.Row(
+                project.getProjectName(),
+                metrics.sourceFiles.sum(),
+                metrics.referencedTypes.sum(),
+                metrics.scanNanos.sum(),
+                metrics.typesInUseNanos.sum(),
+                metrics.classpathNanos.sum(),
+                dependencies,
+                nanos,
+                dependencies == 0 ? 0 : nanos / dependencies,
+                retainedBytes);
+    }
+
+    /**
+     * Drops the measurements of a project once it has been evaluated.
+     */
+    void release(JavaProject project) {
+        projectMetrics.remove(project);
+    }
+
+    private ProjectMetrics metrics(JavaProject project) {
+        return projectMetrics.computeIfAbsent(project, p -> new ProjectMetrics());
+    }
+
+    private static class ProjectMetrics {
+        final LongAdder sourceFiles = new LongAdder();
+        final LongAdder referencedTypes = new LongAdder();
+        final LongAdder scanNanos = new LongAdder();
+        final LongAdder typesInUseNanos = new LongAdder();
+        final LongAdder classpathNanos = new LongAdder();
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.maven.tree.GroupArtifact;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Interns artifacts to dense {@code int} ids and maps fully qualified type names to the ids of all artifacts
+ * providing them, so that a type provided by several artifacts, like shaded copies or split packages, is not
+ * attributed to whichever happened to be added last.
+ * <p>
+ * The types of an artifact version are added as a whole, as {@link ArtifactTypes} that may be shared with other
+ * runs. Only their packages are kept in a trie of package segments, each package node referring to the artifact
+ * versions with types in it. A lookup walks the package of the name in place and asks these whether they have the
+ * type, so that adding an artifact version costs a node per package rather than per type.
+ * <p>
+ * Lookups take no lock. Writers are serialized and never change what a published node or table holds other than
+ * by filling an empty slot of a child table or replacing a volatile field with a fully built value, so that a
+ * concurrent lookup sees an artifact version either completely or not at all.
+ */
+public final class SymbolTable {
+    private final Node root = new Node("");
+    private final List<Provider> providers = new ArrayList<>();
+    private final Map<ArtifactTypes, BitSet> providingArtifacts = new IdentityHashMap<>();
+    private volatile int typeCount;
+
+    private final Map<GroupArtifact, Integer> artifactIds = new ConcurrentHashMap<>();
+    private final List<GroupArtifact> artifacts = new CopyOnWriteArrayList<>();
+    private final List<int[]> singletons = new CopyOnWriteArrayList<>();
+
+    public int artifactId(GroupArtifact ga) {
+        Integer id = artifactIds.get(ga);
+        return id == null ? intern(ga) : id;
+    }
+
+    private synchronized int intern(GroupArtifact ga) {
+        Integer id = artifactIds.get(ga);
+        if (id == null) {
+            id = artifacts.size();
+            artifacts.add(ga);
+            singletons.add(new int[]{id});
+            // published last, so that whoever finds the id finds its artifact and singleton too
+            artifactIds.put(ga, id);
+        }
+        return id;
+    }
+
+    /**
+     * @return the id of the artifact or -1 if it has never been interned.
+     */
+    public int findArtifactId(GroupArtifact ga) {
+        Integer id = artifactIds.get(ga);
+        return id == null ? -1 : id;
+    }
+
+    public GroupArtifact artifact(int artifactId) {
+        return artifacts.get(artifactId);
+    }
+
+    public int artifactCount() {
+        return artifacts.size();
+    }
+
+    /**
+     * Adds the types of an artifact version as provided by the artifact. Adding the same types for the same
+     * artifact again has no effect.
+     */
+    public synchronized void addTypes(ArtifactTypes types, int artifactId) {
+        BitSet providing = providingArtifacts.computeIfAbsent(types, t -> new BitSet());
+        if (providing.get(artifactId)) {
+            return;
+        }
+        providing.set(artifactId);
+        Provider provider = new Provider(artifactId, types);
+        for (String packageName : types.packages()) {
+            Node node = root;
+            for (int start = 0; start < packageName.length(); ) {
+                int end = segmentEnd(packageName, start);
+                Node child = node.child(packageName, start, end);
+                node = child == null ? node.addChild(packageName.substring(start, end)) : child;
+                start = end + 1;
+            }
+            Provider[] packageProviders = node.providers;
+            if (packageProviders == null) {
+                node.providers = new Provider[]{provider};
+            } else {
+                Provider[] grown = new Provider[packageProviders.length + 1];
+                System.arraycopy(packageProviders, 0, grown, 0, packageProviders.length);
+                grown[packageProviders.length] = provider;
+                node.providers = grown;
+            }
+        }
+        providers.add(provider);
+        typeCount += types.size();
+    }
+
+    /**
+     * @return the ids of all artifacts providing the type, or null if the type is not provided by any known artifact.
+     */
+    public int @Nullable [] artifactIdsOf(String fqn) {
+        int packageEnd = fqn.lastIndexOf('.');
+        Node node = root;
+        for (int start = 0; start < packageEnd; ) {
+            int end = segmentEnd(fqn, start);
+            node = node.child(fqn, start, end);
+            if (node == null) {
+                return null;
+            }
+            start = end + 1;
+        }
+        Provider[] packageProviders = node.providers;
+        if (packageProviders == null) {
+            return null;
+        }
+        int[] found = null;
+        for (Provider provider : packageProviders) {
+            if (provider.types.contains(fqn)) {
+                found = found == null ? singletons.get(provider.artifactId) : with(found, provider.artifactId);
+            }
+        }
+        return found;
+    }
+
+    private static int[] with(int[] artifactIds, int artifactId) {
+        for (int id : artifactIds) {
+            if (id == artifactId) {
+                return artifactIds;
+            }
+        }
+        int[] grown = new int[artifactIds.length + 1];
+        System.arraycopy(artifactIds, 0, grown, 0, artifactIds.length);
+        grown[artifactIds.length] = artifactId;
+        return grown;
+    }
+
+    /**
+     * Removes the types of the given artifacts and prunes packages left without types.
+     */
+    public synchronized void removeTypes(BitSet artifactIds) {
+        providers.removeIf(provider -> artifactIds.get(provider.artifactId));
+        providingArtifacts.values().removeIf(providing -> {
+            providing.andNot(artifactIds);
+            return providing.isEmpty();
+        });
+        int remaining = 0;
+        for (Provider provider : providers) {
+            remaining += provider.types.size();
+        }
+        typeCount = remaining;
+        prune(root, artifactIds);
+    }
+
+    /**
+     * @return the number of types added, counting a type once for each artifact version providing it
+     */
+    public int typeCount() {
+        return typeCount;
+    }
+
+    /**
+     * A rough estimate of the heap retained by the table, including the types of the artifact versions, which
+     * may be shared with other runs.
+     */
+    public long estimatedRetainedBytes() {
+        long bytes = root.estimatedRetainedBytes() + artifacts.size() * 96L;
+        Map<ArtifactTypes, Boolean> counted = new IdentityHashMap<>();
+        synchronized (this) {
+            for (Provider provider : providers) {
+                if (counted.put(provider.types, Boolean.TRUE) == null) {
+                    bytes += provider.types.estimatedRetainedBytes();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * @return whether the node still holds a package with types or has descendants that do
+     */
+    private static boolean prune(Node node, BitSet removed) {
+        Provider[] packageProviders = node.providers;
+        if (packageProviders != null) {
+            node.providers = retained(packageProviders, removed);
+        }
+        Node[] children = node.children;
+        if (children != null) {
+            List<Node> kept = new ArrayList<>(node.childCount);
+            for (Node child : children) {
+                if (child != null && prune(child, removed)) {
+                    kept.add(child);
+                }
+            }
+            if (kept.size() < node.childCount) {
+                // a new table rather than emptying slots, which lookups in progress may be probing
+                node.replaceChildren(kept);
+            }
+        }
+        return node.providers != null || node.childCount > 0;
+    }
+
+    private static Provider @Nullable [] retained(Provider[] providers, BitSet removed) {
+        List<Provider> retained = new ArrayList<>(providers.length);
+        for (Provider provider : providers) {
+            if (!removed.get(provider.artifactId)) {
+                retained.add(provider);
+            }
+        }
+        if (retained.size() == providers.length) {
+            return providers;
+        }
+        return retained.isEmpty() ? null : retained.toArray(new Provider[0]);
+    }
+
+    private static int segmentEnd(String name, int start) {
+        int dot = name.indexOf('.', start);
+        return dot < 0 ? name.length() : dot;
+    }
+
+    /**
+     * The types of an artifact version, as provided by an artifact.
+     */
+    private static final class Provider {
+        final int artifactId;
+        final ArtifactTypes types;
+
+        Provider(int artifactId, ArtifactTypes types) {
+            this.artifactId = artifactId;
+            this.types = types;
+        }
+    }
+
+    /**
+     * A package segment, with its children in an open addressing table keyed by their segments. Only the writer
+     * holding the table's monitor changes a node.
+     */
+    private static final class Node {
+        final String segment;
+        volatile Node @Nullable [] children;
+        int childCount;
+        volatile Provider @Nullable [] providers;
+
+        Node(String segment) {
+            this.segment = segment;
+        }
+
+        @Nullable Node child(String name, int start, int end) {
+            Node[] table = children;
+            if (table == null) {
+                return null;
+            }
+            // the same hash as String#hashCode() of the segment, which the children cache
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + name.charAt(i);
+            }
+            int length = end - start;
+            int mask = table.length - 1;
+            for (int i = slot(h, mask); table[i] != null; i = (i + 1) & mask) {
+                String segment = table[i].segment;
+                if (segment.length() == length && name.regionMatches(start, segment, 0, length)) {
+                    return table[i];
+                }
+            }
+            return null;
+        }
+
+        Node addChild(String segment) {
+            Node child = new Node(segment);
+            Node[] table = children;
+            if (table == null) {
+                table = new Node[2];
+                insert(table, child);
+                children = table;
+            } else if (childCount + 1 > table.length * 3 / 4) {
+                Node[] grown = new Node[table.length * 2];
+                for (Node node : table) {
+                    if (node != null) {
+                        insert(grown, node);
+                    }
+                }
+                insert(grown, child);
+                children = grown;
+            } else {
+                // filling an empty slot cannot hide a child from a lookup probing past it
+                insert(table, child);
+            }
+            childCount++;
+            return child;
+        }
+
+        void replaceChildren(List<Node> kept) {
+            if (kept.isEmpty()) {
+                children = null;
+            } else {
+                int length = 2;
+                while (kept.size() > length * 3 / 4) {
+                    length *= 2;
+                }
+                Node[] table = new Node[length];
+                for (Node node : kept) {
+                    insert(table, node);
+                }
+                children = table;
+            }
+            childCount = kept.size();
+        }
+
+        private static void insert(Node[] table, Node node) {
+            int mask = table.length - 1;
+            int i = slot(node.segment.hashCode(), mask);
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = node;
+        }
+
+        private static int slot(int hash, int mask) {
+            int h = hash * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        long estimatedRetainedBytes() {
+            // the node, its segment with a compact latin-1 value and its providers
+            long bytes = 32 + 24 + 16 + segment.length();
+            Provider[] providers = this.providers;
+            if (providers != null) {
+                bytes += 16 + providers.length * 4L;
+            }
+            Node[] children = this.children;
+            if (children != null) {
+                bytes += 16 + children.length * 4L;
+                for (Node child : children) {
+                    if (child != null) {
+                        bytes += child.estimatedRetainedBytes();
+                    }
+                }
+            }
+            return bytes;
+        }
+    }
+}
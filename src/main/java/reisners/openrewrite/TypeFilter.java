@@ -0,0 +1,77 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+/**
+ * A Bloom filter over the packages of the types on a classpath, to discard references to JDK and project types
+ * before looking them up in the {@link SymbolTable}.
+ * <p>
+ * Probes are derived from {@link String#hashCode()} of the package, which for a type looked up is computed over the
+ * package prefix of its name in place, so that a test does not allocate. With at least eight bits per package and
+ * three probes, about three in a hundred packages not on the classpath pass the filter.
+ */
+final class TypeFilter {
+    private static final int PROBES = 3;
+
+    private final long[] bits;
+    private final int mask;
+
+    TypeFilter(int expectedPackages) {
+        int bitCount = 64;
+        while (bitCount < expectedPackages * 8L && bitCount < 1 << 30) {
+            bitCount <<= 1;
+        }
+        this.bits = new long[bitCount >>> 6];
+        this.mask = bitCount - 1;
+    }
+
+    /**
+     * @param packageName the package, or the empty string for the default package
+     */
+    void addPackage(String packageName) {
+        int h = packageName.hashCode();
+        int h1 = h * 0x9E3779B9;
+        int h2 = Integer.rotateLeft(h, 16) * 0x85EBCA6B | 1;
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * @return false if the package of the type is certainly not on the classpath
+     */
+    boolean mightContain(String fqn) {
+        // the same hash as String#hashCode() of the package
+        int h = 0;
+        for (int i = 0, end = fqn.lastIndexOf('.'); i < end; i++) {
+            h = 31 * h + fqn.charAt(i);
+        }
+        int h1 = h * 0x9E3779B9;
+        int h2 = Integer.rotateLeft(h, 16) * 0x85EBCA6B | 1;
+        for (int i = 0; i < PROBES; i++) {
+            int bit = (h1 + i * h2) & mask;
+            if ((bits[bit >>> 6] & 1L << bit) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long estimatedRetainedBytes() {
+        return bits.length * 8L;
+    }
+}
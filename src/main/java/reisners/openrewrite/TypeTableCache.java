@@ -0,0 +1,191 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.jspecify.annotations.NonNull;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A JVM-wide cache of the {@link ArtifactTypes} of artifact versions, so that runs against many repositories in one
+ * JVM neither collect the types of common artifacts from the type tables and class index again nor hash them into
+ * a table of their own. The symbol tables of these runs all refer to the same cached instance.
+ * <p>
+ * The cache is bounded by the estimated heap its types retain and evicts the least recently used artifact versions
+ * first. Snapshot versions are never cached, as their content may change between runs. Types including those found
+ * by a class index are cached apart from those without, so that whether a run uses the class index does not depend
+ * on which runs came before it.
+ */
+public final class TypeTableCache implements MeterBinder {
+    private static final TypeTableCache SHARED = new TypeTableCache(0);
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long maximumWeight;
+    private long weight;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public TypeTableCache(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * @param maximumWeight the estimated heap in bytes the cache should be allowed to retain. The shared cache is
+     *                      bounded by the largest weight asked for by any run, so that a run never shrinks the
+     *                      cache of another running concurrently.
+     */
+    public static TypeTableCache shared(long maximumWeight) {
+        SHARED.raiseMaximumWeight(maximumWeight);
+        return SHARED;
+    }
+
+    public synchronized void setMaximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+        evict();
+    }
+
+    public synchronized void raiseMaximumWeight(long maximumWeight) {
+        this.maximumWeight = Math.max(this.maximumWeight, maximumWeight);
+    }
+
+    public synchronized long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /**
+     * @param indexed whether the types include those found by a class index
+     * @param load    collects the types on a miss
+     */
+    public ArtifactTypes get(String gav, boolean indexed, Supplier<ArtifactTypes> load) {
+        if (gav.endsWith("-SNAPSHOT")) {
+            return load.get();
+        }
+        Key key = new Key(gav, indexed);
+        synchronized (this) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                hits.increment();
+                return entry.types;
+            }
+        }
+        misses.increment();
+        ArtifactTypes types = load.get();
+        Entry entry = new Entry(types);
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                weight -= previous.weight;
+            }
+            weight += entry.weight;
+            evict();
+        }
+        return types;
+    }
+
+    private void evict() {
+        Iterator<Entry> lru = entries.values().iterator();
+        while (weight > maximumWeight && lru.hasNext()) {
+            weight -= lru.next().weight;
+            lru.remove();
+            evictions.increment();
+        }
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public synchronized long getWeight() {
+        return weight;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        FunctionCounter.builder("rewrite.unused.dependencies.type.table.cache.hits", this, TypeTableCache::getHits)
+                .description("Artifact versions whose types were found in the type table cache")
+                .register(registry);
+        FunctionCounter.builder("rewrite.unused.dependencies.type.table.cache.misses", this, TypeTableCache::getMisses)
+                .description("Artifact versions whose types had to be collected")
+                .register(registry);
+        FunctionCounter.builder("rewrite.unused.dependencies.type.table.cache.evictions", this, TypeTableCache::getEvictions)
+                .description("Artifact versions evicted from the type table cache")
+                .register(registry);
+        Gauge.builder("rewrite.unused.dependencies.type.table.cache.weight", this, TypeTableCache::getWeight)
+                .description("Estimated heap retained by the type table cache")
+                .baseUnit("bytes")
+                .register(registry);
+    }
+
+    private static final class Key {
+        final String gav;
+        final boolean indexed;
+
+        Key(String gav, boolean indexed) {
+            this.gav = gav;
+            this.indexed = indexed;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return indexed == key.indexed && gav.equals(key.gav);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(gav, indexed);
+        }
+    }
+
+    private static final class Entry {
+        final ArtifactTypes types;
+        final long weight;
+
+        Entry(ArtifactTypes types) {
+            this.types = types;
+            this.weight = types.estimatedRetainedBytes();
+        }
+    }
+}
@@ -15,31 +15,175 @@
  */
 package reisners.openrewrite;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import io.micrometer.core.instrument.Metrics;
+import lombok.AllArgsConstructor;
 import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.Value;
+import lombok.With;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.openrewrite.ExecutionContext;
+import org.openrewrite.Option;
 import org.openrewrite.ScanningRecipe;
+import org.openrewrite.SourceFile;
 import org.openrewrite.Tree;
 import org.openrewrite.TreeVisitor;
 import org.openrewrite.gradle.marker.GradleDependencyConfiguration;
 import org.openrewrite.gradle.marker.GradleProject;
+import org.openrewrite.groovy.tree.G;
+import org.openrewrite.internal.StringUtils;
 import org.openrewrite.java.internal.TypesInUse;
 import org.openrewrite.java.marker.JavaProject;
 import org.openrewrite.java.marker.JavaSourceSet;
 import org.openrewrite.java.tree.JavaSourceFile;
 import org.openrewrite.java.tree.JavaType;
 import org.openrewrite.maven.tree.*;
+import org.openrewrite.xml.tree.Xml;
+import reisners.openrewrite.bytecode.ClassFiles;
+import reisners.openrewrite.export.ReportFileWriter;
+import reisners.openrewrite.index.ClassIndex;
+import reisners.openrewrite.table.UnusedDependenciesMetrics;
 import reisners.openrewrite.table.UnusedDependencyReport;
+import reisners.openrewrite.table.UsedUndeclaredDependencyReport;
+import reisners.openrewrite.usage.UsageCollector;
+import reisners.openrewrite.usage.UsageCollectors;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 
 @Value
 @EqualsAndHashCode(callSuper = false)
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
 public class UnusedDependencies extends ScanningRecipe<UnusedDependencies.Accumulator> {
 
     transient UnusedDependencyReport report = new UnusedDependencyReport(this);
+    transient UsedUndeclaredDependencyReport usedUndeclaredReport = new UsedUndeclaredDependencyReport(this);
+    transient UnusedDependenciesMetrics metricsReport = new UnusedDependenciesMetrics(this);
+
+    @Option(displayName = "Scan cache directory",
+            description = "A directory in which to keep the types referenced by each source file between runs, " +
+                          "so that source files unchanged since the previous run, on an unchanged classpath, are not " +
+                          "analyzed again. Only source files with a checksum recorded by the parser are cached.",
+            required = false,
+            example = "target/unused-dependencies")
+    @With
+    @Nullable
+    String scanCacheDirectory;
+
+    @Option(displayName = "Class index directory",
+            description = "A directory in which to keep an index of the classes of each dependency, read from its jar " +
+                          "in the Maven local repository or Gradle cache. Types are then attributed to dependencies " +
+                          "even when they are missing from the type tables of the source sets.",
+            required = false,
+            example = "target/class-index")
+    @With
+    @Nullable
+    String classIndexDirectory;
+
+    @Option(displayName = "Collect metrics",
+            description = "Record where the time and memory go per project in a data table, and as Micrometer meters " +
+                          "in the global registry.",
+            required = false)
+    @With
+    @Nullable
+    Boolean collectMetrics;
+
+    @Option(displayName = "Scan compiled classes",
+            description = "Find the types used by each source set in the constant pools of its compiled classes instead of " +
+                          "in the type attribution of its source files. Classes are looked up in target/classes, " +
+                          "target/test-classes and build/classes/<language>/<source set> of each project, relative to " +
+                          "the working directory. Source sets without compiled classes fall back to type attribution.",
+            required = false)
+    @With
+    @Nullable
+    Boolean scanCompiledClasses;
+
+    @Option(displayName = "Streaming",
+            description = "Evaluate each project as soon as the scan moves on to the next one and release the data " +
+                          "collected for it, so that memory is bounded by the largest project rather than the whole " +
+                          "repository. Requires the source files of each project to be contiguous, as they usually are.",
+            required = false)
+    @With
+    @Nullable
+    Boolean streaming;
+
+    @Option(displayName = "Parallelism",
+            description = "The number of threads evaluating the dependencies of the projects once the scan is complete. " +
+                          "Defaults to the parallelism of the common fork-join pool.",
+            required = false,
+            example = "4")
+    @With
+    @Nullable
+    Integer parallelism;
+
+    @Option(displayName = "Remove unused dependencies",
+            description = "Remove the declarations of dependencies not used by any source set from the build file, all " +
+                          "in a single edit per build file. Dependencies only unused by the source sets of their " +
+                          "scope, and those through which a used transitive dependency is reached, are reported but kept.",
+            required = false)
+    @With
+    @Nullable
+    Boolean removeUnused;
+
+    @Option(displayName = "Keep dependencies",
+            description = "Dependencies that are never reported nor removed, as `groupId:artifactId` patterns that may " +
+                          "contain `*` wildcards. Meant for dependencies only needed at runtime, like JDBC drivers and " +
+                          "logging bindings.",
+            required = false,
+            example = "com.mysql:mysql-connector-j, org.slf4j:slf4j-simple")
+    @With
+    @Nullable
+    List<String> keepDependencies;
+
+    @Option(displayName = "Export file",
+            description = "A file to which the rows of the unused dependency report are appended as each project is " +
+                          "reported, in a compact dictionary encoded binary format. The file is replaced in every run, " +
+                          "even one finding no unused dependencies. Such files are read with " +
+                          "`ReportFileReader` and merged with `ReportFiles`.",
+            required = false,
+            example = "target/unused-dependencies.udr")
+    @With
+    @Nullable
+    String exportFile;
+
+    @Option(displayName = "Type table cache size",
+            description = "The megabytes of heap a cache of the types of each artifact version, shared by all runs in the " +
+                          "JVM, may retain. Runs against many repositories in one JVM then collect and hash the types of " +
+                          "common artifacts only once, and index only their packages. The cache is bounded by the " +
+                          "largest size any run asks for, and the bound is never lowered again, so a single run asking " +
+                          "for a large size lets the cache retain that much for the lifetime of the JVM. Without a size, " +
+                          "types are not cached across runs.",
+            required = false,
+            example = "256")
+    @With
+    @Nullable
+    Integer typeTableCacheSize;
+
+    @Option(displayName = "Skip fully used projects",
+            description = "Stop analyzing the source files of a project once each of its declared dependencies is used by " +
+                          "the source sets of its scope, as no further usage can change which are unused. Only takes " +
+                          "effect for projects whose build file is scanned before their source files, as usual. Used " +
+                          "undeclared dependencies of such projects are only reported as far as found until then.",
+            required = false)
+    @With
+    @Nullable
+    Boolean skipFullyUsedProjects;
+
+    /**
+     * The default configuration, with every option unset.
+     */
+    public UnusedDependencies() {
+        this(null, null, null, null, null, null, null, null, null, null, null);
+    }
 
     @Override
     public @NonNull String getDisplayName() {
@@ -53,7 +197,24 @@ public class UnusedDependencies extends ScanningRecipe<UnusedDependencies.Accumu
 
     @Override
     public @NonNull Accumulator getInitialValue(@NonNull ExecutionContext ctx) {
-        return new Accumulator();
+        return new Accumulator(
+                scanCacheDirectory == null ? null : ScanCache.open(Paths.get(scanCacheDirectory)),
+                classIndexDirectory == null ? null : ClassIndex.create(Paths.get(classIndexDirectory), ctx),
+                Boolean.TRUE.equals(collectMetrics) ? new ScanMetrics(Metrics.globalRegistry) : null,
+                Boolean.TRUE.equals(streaming),
+                exportFile == null ? null : new ReportFileWriter(Paths.get(exportFile)),
+                typeTableCache());
+    }
+
+    private @Nullable TypeTableCache typeTableCache() {
+        if (typeTableCacheSize == null) {
+            return null;
+        }
+        TypeTableCache cache = TypeTableCache.shared(typeTableCacheSize * 1024L * 1024L);
+        if (Boolean.TRUE.equals(collectMetrics)) {
+            cache.bindTo(Metrics.globalRegistry);
+        }
+        return cache;
     }
 
     @Override
@@ -61,110 +222,887 @@ public class UnusedDependencies extends ScanningRecipe<UnusedDependencies.Accumu
         return new TreeVisitor<Tree, ExecutionContext>() {
             @Override
             public @Nullable Tree visit(@Nullable Tree tree, @NonNull ExecutionContext ctx) {
+                JavaProject javaProject = tree == null ? null : tree.getMarkers().findFirst(JavaProject.class).orElse(null);
+                if (javaProject != null && acc.isEvaluatedInEarlierCycle(javaProject)) {
+                    return tree;
+                }
                 if (tree instanceof JavaSourceFile) {
-                    acc.recordTypesInUse((JavaSourceFile) tree);
+                    JavaSourceFile cu = (JavaSourceFile) tree;
+                    if (!Boolean.TRUE.equals(scanCompiledClasses) || !acc.recordCompiledClasses(cu, Paths.get(""), ctx)) {
+                        acc.recordTypesInUse(cu);
+                    }
+                } else if (tree instanceof SourceFile) {
+                    acc.recordCollectedTypes((SourceFile) tree, UsageCollectors.all());
+                }
+                if (javaProject != null) {
+                    if (isBuildFile(tree)) {
+                        acc.recordBuildFile(javaProject, tree);
+                        if (Boolean.TRUE.equals(skipFullyUsedProjects)) {
+                            acc.recordDeclaredDependencies(javaProject, requiredSourceSets(tree));
+                        }
+                    }
+                    if (acc.isStreaming()) {
+                        acc.scanned(javaProject, (p, buildFile) -> evaluate(acc, p, buildFile), ctx);
+                    }
                 }
                 return tree;
             }
         };
     }
 
+    @Override
+    public @NonNull Collection<? extends SourceFile> generate(@NonNull Accumulator acc, @NonNull ExecutionContext ctx) {
+        if (acc.isStreaming()) {
+            acc.finishCurrentProject((p, buildFile) -> evaluate(acc, p, buildFile));
+        }
+        acc.evaluateAll((p, buildFile) -> evaluate(acc, p, buildFile), parallelism == null ? 0 : parallelism);
+        acc.scanCompleted(ctx);
+        return Collections.emptyList();
+    }
+
     @Override
     public @NonNull TreeVisitor<?, ExecutionContext> getVisitor(@NonNull Accumulator acc) {
         return new TreeVisitor<Tree, ExecutionContext>() {
             @Override
             public Tree visit(Tree tree, @NonNull ExecutionContext ctx) {
+                if (!isBuildFile(tree)) {
+                    return tree;
+                }
                 JavaProject javaProject = tree.getMarkers().findFirst(JavaProject.class).orElse(null);
-                if (javaProject == null) {
+                if (javaProject == null || !acc.getReportedProjects().add(javaProject)) {
                     return tree;
                 }
-                MavenResolutionResult mrr = tree.getMarkers().findFirst(MavenResolutionResult.class).orElse(null);
-                if (mrr != null) {
-                    List<ResolvedDependency> dependencies = mrr.getDependencies().get(Scope.Test);
-                    dependencies.stream()
-                            .filter(dep -> dep.getDepth() == 0)
-                            .forEach(
-                                dependency -> {
-                                    GroupArtifact ga = dependency.getGav().asGroupArtifact();
-                                    if (!acc.isInUse(javaProject, ga)) {
-                                        report.insertRow(ctx, new UnusedDependencyReport.Row(
-                                                javaProject.getProjectName(),
-                                                UnusedDependencyReport.DependencyType.MAVEN,
-                                                ga.getGroupId(),
-                                                ga.getArtifactId()));
-
-                                    }
-                                }
-                            );
-                }
-                GradleProject gp = tree.getMarkers().findFirst(GradleProject.class).orElse(null);
-                if (gp != null) {
-                    GradleDependencyConfiguration testRuntimeConfiguration = gp.getConfiguration("testRuntimeClasspath");
-                    if (testRuntimeConfiguration != null) {
-                        for (Dependency dependency : testRuntimeConfiguration.getRequested()) {
-                            GroupArtifact ga = dependency.getGav().asGroupArtifact();
-                            if (!acc.isInUse(javaProject, ga)) {
-                                report.insertRow(ctx, new UnusedDependencyReport.Row(
-                                        javaProject.getProjectName(),
-                                        UnusedDependencyReport.DependencyType.GRADLE,
-                                        ga.getGroupId(),
-                                        ga.getArtifactId()));
-                            }
-                        }
+                DependencyEvaluation evaluation = acc.evaluate(javaProject, p -> evaluate(acc, p, tree));
+                for (UnusedDependencyReport.Row row : evaluation.getUnusedDependencies()) {
+                    report.insertRow(ctx, row);
+                }
+                acc.export(evaluation.getUnusedDependencies(), ctx);
+                for (UsedUndeclaredDependencyReport.Row row : evaluation.getUsedUndeclaredDependencies()) {
+                    usedUndeclaredReport.insertRow(ctx, row);
+                }
+                if (evaluation.getMetrics() != null) {
+                    metricsReport.insertRow(ctx, evaluation.getMetrics());
+                }
+                if (Boolean.TRUE.equals(removeUnused) && !evaluation.getRemovableDependencies().isEmpty()) {
+                    if (tree instanceof Xml.Document) {
+                        return new RemoveMavenDependencies(evaluation.getRemovableDependencies()).visit(tree, ctx);
+                    }
+                    if (tree instanceof G.CompilationUnit) {
+                        return new RemoveGradleDependencies(evaluation.getRemovableDependencies()).visit(tree, ctx);
                     }
-
                 }
                 return tree;
             }
         };
     }
 
+    /**
+     * Only build files carry the markers needed to evaluate a project's dependencies.
+     */
+    private static boolean isBuildFile(@Nullable Tree tree) {
+        if (!(tree instanceof SourceFile)) {
+            return false;
+        }
+        if (tree instanceof Xml.Document) {
+            return tree.getMarkers().findFirst(MavenResolutionResult.class).isPresent();
+        }
+        String fileName = ((SourceFile) tree).getSourcePath().toString();
+        return (fileName.endsWith(".gradle") || fileName.endsWith(".gradle.kts")) &&
+               tree.getMarkers().findFirst(GradleProject.class).isPresent();
+    }
+
+    /**
+     * The declarable Gradle configurations of a source set, by the suffix that follows the source set name.
+     */
+    private static final String[] GRADLE_CONFIGURATION_SUFFIXES = {"Implementation", "CompileOnlyApi", "CompileOnly", "RuntimeOnly", "Api"};
+
+    private DependencyEvaluation evaluate(Accumulator acc, JavaProject javaProject, Tree buildFile) {
+        List<UnusedDependencyReport.Row> unusedDependencies = new ArrayList<>();
+        List<UsedUndeclaredDependencyReport.Row> usedUndeclaredDependencies = new ArrayList<>();
+        Set<GroupArtifact> removableDependencies = new LinkedHashSet<>();
+        int evaluatedDependencies = 0;
+        MavenResolutionResult mrr = buildFile.getMarkers().findFirst(MavenResolutionResult.class).orElse(null);
+        if (mrr != null) {
+            Map<GroupArtifact, ResolvedDependency> directDependencies = mavenDirectDependencies(mrr);
+            evaluatedDependencies += evaluate(acc, javaProject, UnusedDependencyReport.DependencyType.MAVEN,
+                    DependencyGraph.build(directDependencies.values()), mavenDeclaredScopes(directDependencies),
+                    unusedDependencies, usedUndeclaredDependencies, removableDependencies);
+        }
+        GradleProject gp = buildFile.getMarkers().findFirst(GradleProject.class).orElse(null);
+        if (gp != null) {
+            Map<GroupArtifact, List<String>> declaredScopes = gradleDeclaredScopes(gp);
+            GradleDependencyConfiguration testRuntimeConfiguration = gp.getConfiguration("testRuntimeClasspath");
+            DependencyGraph graph = testRuntimeConfiguration == null || testRuntimeConfiguration.getDirectResolved().isEmpty() ?
+                    DependencyGraph.ofDirect(declaredScopes.keySet()) :
+                    DependencyGraph.build(testRuntimeConfiguration.getDirectResolved());
+            evaluatedDependencies += evaluate(acc, javaProject, UnusedDependencyReport.DependencyType.GRADLE, graph, declaredScopes,
+                    unusedDependencies, usedUndeclaredDependencies, removableDependencies);
+        }
+        return new DependencyEvaluation(unusedDependencies, usedUndeclaredDependencies, removableDependencies,
+                evaluatedDependencies, null);
+    }
+
+    /**
+     * Every scope's classpath starts with the direct dependencies in it, so together they are all declared ones.
+     */
+    private static Map<GroupArtifact, ResolvedDependency> mavenDirectDependencies(MavenResolutionResult mrr) {
+        Map<GroupArtifact, ResolvedDependency> directDependencies = new LinkedHashMap<>();
+        for (List<ResolvedDependency> dependencies : mrr.getDependencies().values()) {
+            for (ResolvedDependency dependency : dependencies) {
+                if (dependency.getDepth() == 0) {
+                    directDependencies.putIfAbsent(dependency.getGav().asGroupArtifact(), dependency);
+                }
+            }
+        }
+        return directDependencies;
+    }
+
+    private static Map<GroupArtifact, List<String>> mavenDeclaredScopes(Map<GroupArtifact, ResolvedDependency> directDependencies) {
+        Map<GroupArtifact, List<String>> declaredScopes = new LinkedHashMap<>();
+        for (ResolvedDependency dependency : directDependencies.values()) {
+            Scope scope = Scope.fromName(dependency.getRequested().getScope());
+            declaredScopes.put(dependency.getGav().asGroupArtifact(), Collections.singletonList(scope.name().toLowerCase(Locale.ROOT)));
+        }
+        return declaredScopes;
+    }
+
+    private static Map<GroupArtifact, List<String>> gradleDeclaredScopes(GradleProject gp) {
+        Map<GroupArtifact, List<String>> declaredScopes = new LinkedHashMap<>();
+        for (GradleDependencyConfiguration configuration : gp.getConfigurations()) {
+            if (!configuration.isCanBeResolved() && gradleSourceSet(configuration.getName()) != null) {
+                for (Dependency dependency : configuration.getRequested()) {
+                    declaredScopes.computeIfAbsent(dependency.getGav().asGroupArtifact(), ga -> new ArrayList<>())
+                            .add(configuration.getName());
+                }
+            }
+        }
+        return declaredScopes;
+    }
+
+    /**
+     * @return for each declared dependency that may be reported, the source sets that have to use it for it not to
+     * be, with null standing for any source set
+     */
+    private Map<GroupArtifact, List<@Nullable String>> requiredSourceSets(Tree buildFile) {
+        Map<GroupArtifact, List<@Nullable String>> requiredSourceSets = new LinkedHashMap<>();
+        MavenResolutionResult mrr = buildFile.getMarkers().findFirst(MavenResolutionResult.class).orElse(null);
+        if (mrr != null) {
+            for (Map.Entry<GroupArtifact, List<String>> declared : mavenDeclaredScopes(mavenDirectDependencies(mrr)).entrySet()) {
+                for (String scope : declared.getValue()) {
+                    addRequiredSourceSet(requiredSourceSets, declared.getKey(), mavenSourceSet(scope));
+                }
+            }
+        }
+        GradleProject gp = buildFile.getMarkers().findFirst(GradleProject.class).orElse(null);
+        if (gp != null) {
+            for (Map.Entry<GroupArtifact, List<String>> declared : gradleDeclaredScopes(gp).entrySet()) {
+                for (String configuration : declared.getValue()) {
+                    addRequiredSourceSet(requiredSourceSets, declared.getKey(), gradleSourceSet(configuration));
+                }
+            }
+        }
+        return requiredSourceSets;
+    }
+
+    private void addRequiredSourceSet(Map<GroupArtifact, List<@Nullable String>> requiredSourceSets, GroupArtifact ga,
+                                      @Nullable String sourceSet) {
+        if (!isKept(ga)) {
+            requiredSourceSets.computeIfAbsent(ga, k -> new ArrayList<>()).add(sourceSet);
+        }
+    }
+
+    /**
+     * A single pass over the dependency graph finds both the declared dependencies that are not used by the source
+     * sets of their scope and the transitive ones that are used by any source set. Declared dependencies through
+     * which a used transitive one is reached are reported, but not removable.
+     * <p>
+     * Declared dependencies missing from the graph, like Gradle's compile only ones, are checked afterwards.
+     *
+     * @return the number of dependencies evaluated
+     */
+    private int evaluate(Accumulator acc, JavaProject javaProject, UnusedDependencyReport.DependencyType dependencyType,
+                         DependencyGraph graph, Map<GroupArtifact, List<String>> declaredScopes,
+                         List<UnusedDependencyReport.Row> unusedDependencies,
+                         List<UsedUndeclaredDependencyReport.Row> usedUndeclaredDependencies,
+                         Set<GroupArtifact> removableDependencies) {
+        Set<GroupArtifact> evaluated = new HashSet<>();
+        Set<GroupArtifact> providingUsedTransitives = new HashSet<>();
+        for (int node = 0; node < graph.size(); node++) {
+            GroupArtifact ga = graph.artifact(node);
+            List<String> scopes = declaredScopes.get(ga);
+            if (scopes != null) {
+                evaluated.add(ga);
+                addUnusedDependencies(acc, javaProject, dependencyType, ga, scopes, unusedDependencies, removableDependencies);
+            } else if (!graph.isDirect(node) && acc.isInUse(javaProject, ga)) {
+                GroupArtifact via = graph.artifact(graph.via(node));
+                providingUsedTransitives.add(via);
+                usedUndeclaredDependencies.add(new UsedUndeclaredDependencyReport.Row(
+                        javaProject.getProjectName(),
+                        dependencyType,
+                        ga.getGroupId(),
+                        ga.getArtifactId(),
+                        via.getGroupId() + ":" + via.getArtifactId()));
+            }
+        }
+        int evaluatedDependencies = graph.size();
+        for (Map.Entry<GroupArtifact, List<String>> declared : declaredScopes.entrySet()) {
+            if (!evaluated.contains(declared.getKey())) {
+                addUnusedDependencies(acc, javaProject, dependencyType, declared.getKey(), declared.getValue(),
+                        unusedDependencies, removableDependencies);
+                evaluatedDependencies++;
+            }
+        }
+        // removing these would take used transitive dependencies off the classpath
+        removableDependencies.removeAll(providingUsedTransitives);
+        return evaluatedDependencies;
+    }
+
+    private void addUnusedDependencies(Accumulator acc, JavaProject javaProject, UnusedDependencyReport.DependencyType dependencyType,
+                                       GroupArtifact ga, List<String> scopes, List<UnusedDependencyReport.Row> unusedDependencies,
+                                       Set<GroupArtifact> removableDependencies) {
+        if (isKept(ga)) {
+            return;
+        }
+        if (!acc.isInUse(javaProject, ga)) {
+            removableDependencies.add(ga);
+        }
+        for (String scope : scopes) {
+            String sourceSet = dependencyType == UnusedDependencyReport.DependencyType.MAVEN ? mavenSourceSet(scope) : gradleSourceSet(scope);
+            if (sourceSet == null ? !acc.isInUse(javaProject, ga) : !acc.isInUse(javaProject, sourceSet, ga)) {
+                unusedDependencies.add(new UnusedDependencyReport.Row(
+                        javaProject.getProjectName(),
+                        dependencyType,
+                        ga.getGroupId(),
+                        ga.getArtifactId(),
+                        scope));
+            }
+        }
+    }
+
+    private boolean isKept(GroupArtifact ga) {
+        if (keepDependencies != null) {
+            for (String keep : keepDependencies) {
+                int colon = keep.indexOf(':');
+                String groupPattern = colon < 0 ? keep.trim() : keep.substring(0, colon).trim();
+                String artifactPattern = colon < 0 ? "*" : keep.substring(colon + 1).trim();
+                if (StringUtils.matchesGlob(ga.getGroupId(), groupPattern) && StringUtils.matchesGlob(ga.getArtifactId(), artifactPattern)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the source set whose usage justifies a dependency of the Maven scope, or null if usage by any does
+     */
+    private static @Nullable String mavenSourceSet(String scope) {
+        return "test".equals(scope) ? null : "main";
+    }
+
+    /**
+     * @return the source set a declarable Gradle configuration belongs to, e.g. "test" for "testImplementation",
+     * or null if the configuration does not declare dependencies of a source set
+     */
+    static @Nullable String gradleSourceSet(String configurationName) {
+        for (String suffix : GRADLE_CONFIGURATION_SUFFIXES) {
+            String mainConfigurationName = Character.toLowerCase(suffix.charAt(0)) + suffix.substring(1);
+            if (configurationName.equals(mainConfigurationName)) {
+                return "main";
+            }
+            if (configurationName.endsWith(suffix) && configurationName.length() > suffix.length()) {
+                return configurationName.substring(0, configurationName.length() - suffix.length());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Safe to be fed by scanners running on several threads at once: all state lives in concurrent maps and sets,
+     * so threads scanning different projects or source sets do not contend with each other.
+     * <p>
+     * Types and artifacts are interned in a {@link SymbolTable}, each source set's classpath and usage are kept as
+     * bitsets of artifact ids. Usage is tracked per source set name within a project, so that main and test usage can
+     * be told apart.
+     * <p>
+     * When streaming, a project is evaluated as soon as the scan moves on to the next one. Its usage, classpaths and
+     * the types of artifacts no other live project has on its classpath are then released.
+     * <p>
+     * Once the declared dependencies of a project are known, usage of each by the required source sets is checked
+     * off as it is recorded. When none is left, the remaining source files of the project are skipped.
+     */
     public static class Accumulator {
-        private final Map<JavaProject, Set<String>> projectToTypesInUse = new HashMap<>();
-        private final Map<String, GroupArtifact> typeFqnToGA = new HashMap<>();
+        @Getter
+        private final SymbolTable symbols = new SymbolTable();
+
+        @Getter
+        private final @Nullable ScanCache scanCache;
+
+        private final @Nullable ClassIndex classIndex;
 
+        private final @Nullable ScanMetrics metrics;
+
+        private final @Nullable ReportFileWriter export;
+
+        private final @Nullable TypeTableCache typeTableCache;
+
+        private final Map<String, Integer> gavToArtifactId = new ConcurrentHashMap<>();
+        private final Map<UUID, Classpath> sourceSetToClasspath = new ConcurrentHashMap<>();
+        private final Map<UUID, Boolean> sourceSetToCompiledClasses = new ConcurrentHashMap<>();
+        private final Map<UUID, byte[]> sourceSetToClasspathChecksum = new ConcurrentHashMap<>();
+        private final Map<JavaProject, Map<String, BitSet>> projectToArtifactsInUse = new ConcurrentHashMap<>();
+        private final Map<JavaProject, List<RequiredUsage>> projectToRequiredUsages = new ConcurrentHashMap<>();
+        private final Set<JavaProject> fullyUsedProjects = ConcurrentHashMap.newKeySet();
+
+        @Getter
+        private final Map<JavaProject, DependencyEvaluation> projectToEvaluation = new ConcurrentHashMap<>();
+
+        @Getter
+        private final Set<JavaProject> reportedProjects = ConcurrentHashMap.newKeySet();
+
+        @Getter
+        private final boolean streaming;
+
+        private final Map<JavaProject, Set<UUID>> projectToSourceSets = new ConcurrentHashMap<>();
+        private final Map<Integer, Set<JavaProject>> artifactToProjects = new ConcurrentHashMap<>();
+        private final Map<JavaProject, Tree> projectToBuildFile = new ConcurrentHashMap<>();
+        private final Set<JavaProject> finishedProjects = new HashSet<>();
+        private @Nullable JavaProject currentProject;
+        private volatile boolean scanCompleted;
+
+        public Accumulator() {
+            this(null, null);
+        }
+
+        public Accumulator(@Nullable ScanCache scanCache, @Nullable ClassIndex classIndex) {
+            this(scanCache, classIndex, null, false, null, null);
+        }
+
+        public Accumulator(@Nullable ScanCache scanCache, @Nullable ClassIndex classIndex, @Nullable ScanMetrics metrics,
+                           boolean streaming, @Nullable ReportFileWriter export, @Nullable TypeTableCache typeTableCache) {
+            this.scanCache = scanCache;
+            this.classIndex = classIndex;
+            this.metrics = metrics;
+            this.streaming = streaming;
+            this.export = export;
+            this.typeTableCache = typeTableCache;
+        }
+
+        /**
+         * Saves the scan cache and creates the export file, which rows are appended to as projects are reported.
+         */
+        public void scanCompleted(ExecutionContext ctx) {
+            scanCompleted = true;
+            if (scanCache != null) {
+                try {
+                    scanCache.save();
+                } catch (IOException e) {
+                    ctx.getOnError().accept(e);
+                }
+            }
+            if (export != null) {
+                try {
+                    export.create();
+                } catch (IOException e) {
+                    ctx.getOnError().accept(e);
+                }
+            }
+        }
+
+        public void export(List<UnusedDependencyReport.Row> rows, ExecutionContext ctx) {
+            if (export != null && !rows.isEmpty()) {
+                try {
+                    export.append(rows);
+                } catch (IOException e) {
+                    ctx.getOnError().accept(e);
+                }
+            }
+        }
+
+        /**
+         * Keeps the first build file scanned for a project until its dependencies are evaluated.
+         */
+        public void recordBuildFile(JavaProject project, Tree buildFile) {
+            projectToBuildFile.putIfAbsent(project, buildFile);
+        }
+
+        /**
+         * Evaluates the dependencies of all projects whose build files have been scanned and which have not been
+         * evaluated yet, each as a task of a fork-join pool.
+         *
+         * @param parallelism the number of threads to evaluate on, or 0 for the common pool
+         */
+        public void evaluateAll(BiFunction<JavaProject, Tree, DependencyEvaluation> evaluation, int parallelism) {
+            List<Map.Entry<JavaProject, Tree>> pending = new ArrayList<>(projectToBuildFile.entrySet());
+            projectToBuildFile.clear();
+            if (pending.isEmpty()) {
+                return;
+            }
+            ForkJoinPool pool = parallelism > 0 ? new ForkJoinPool(parallelism) : ForkJoinPool.commonPool();
+            try {
+                List<ForkJoinTask<DependencyEvaluation>> tasks = new ArrayList<>(pending.size());
+                for (Map.Entry<JavaProject, Tree> projectAndBuildFile : pending) {
+                    tasks.add(pool.submit(() -> evaluate(projectAndBuildFile.getKey(),
+                            p -> evaluation.apply(p, projectAndBuildFile.getValue()))));
+                }
+                for (ForkJoinTask<DependencyEvaluation> task : tasks) {
+                    task.join();
+                }
+            } finally {
+                if (pool != ForkJoinPool.commonPool()) {
+                    pool.shutdown();
+                }
+            }
+        }
+
+        /**
+         * Later cycles of a run scan all source files again, with the same accumulator. By then all projects whose
+         * build file was scanned have been evaluated and their data may have been released, so scanning their source
+         * files again could not change their evaluation, but only record usage that is never released.
+         *
+         * @return whether the project was evaluated in an earlier cycle of the run
+         */
+        public boolean isEvaluatedInEarlierCycle(JavaProject project) {
+            return scanCompleted && projectToEvaluation.containsKey(project);
+        }
+
+        /**
+         * Tells a streaming accumulator that a source file of the project has been scanned, finishing the previous
+         * project if this one is different.
+         */
+        public synchronized void scanned(JavaProject project, BiFunction<JavaProject, Tree, DependencyEvaluation> evaluation,
+                                         ExecutionContext ctx) {
+            if (project.equals(currentProject)) {
+                return;
+            }
+            if (finishedProjects.contains(project)) {
+                ctx.getOnError().accept(new IllegalStateException("The source files of project " + project.getProjectName() +
+                                                                  " are not contiguous, its dependencies were evaluated before all of them were scanned"));
+            }
+            finishCurrentProject(evaluation);
+            currentProject = project;
+        }
+
+        /**
+         * Evaluates the project currently being scanned and releases the data collected for it. A project whose
+         * build file has not been scanned yet is kept to be evaluated when it is.
+         */
+        public synchronized void finishCurrentProject(BiFunction<JavaProject, Tree, DependencyEvaluation> evaluation) {
+            JavaProject project = currentProject;
+            currentProject = null;
+            Tree buildFile = project == null ? null : projectToBuildFile.remove(project);
+            if (buildFile == null) {
+                return;
+            }
+            evaluate(project, p -> evaluation.apply(p, buildFile));
+            finishedProjects.add(project);
+            release(project);
+        }
+
+        private void release(JavaProject project) {
+            projectToArtifactsInUse.remove(project);
+            projectToRequiredUsages.remove(project);
+            fullyUsedProjects.remove(project);
+            if (metrics != null) {
+                metrics.release(project);
+            }
+            BitSet released = new BitSet();
+            for (UUID sourceSet : projectToSourceSets.getOrDefault(project, Collections.emptySet())) {
+                sourceSetToCompiledClasses.remove(sourceSet);
+                sourceSetToClasspathChecksum.remove(sourceSet);
+                Classpath classpath = sourceSetToClasspath.remove(sourceSet);
+                if (classpath == null) {
+                    continue;
+                }
+                BitSet artifactIds = classpath.artifactIds;
+                for (int artifactId = artifactIds.nextSetBit(0); artifactId >= 0; artifactId = artifactIds.nextSetBit(artifactId + 1)) {
+                    Set<JavaProject> projects = artifactToProjects.get(artifactId);
+                    if (projects != null && projects.remove(project) && projects.isEmpty()) {
+                        artifactToProjects.remove(artifactId);
+                        released.set(artifactId);
+                    }
+                }
+            }
+            projectToSourceSets.remove(project);
+            if (!released.isEmpty()) {
+                // artifact versions are registered again should a later project have them on its classpath
+                gavToArtifactId.values().removeIf(released::get);
+                symbols.removeTypes(released);
+            }
+        }
+
+        /**
+         * Evaluates the dependencies of a project once and returns the memoized result on subsequent calls.
+         */
+        public DependencyEvaluation evaluate(JavaProject project, Function<JavaProject, DependencyEvaluation> evaluation) {
+            if (metrics == null) {
+                return projectToEvaluation.computeIfAbsent(project, evaluation);
+            }
+            return projectToEvaluation.computeIfAbsent(project, p -> {
+                long start = System.nanoTime();
+                DependencyEvaluation result = evaluation.apply(p);
+                return result.withMetrics(metrics.projectEvaluated(p, result.getEvaluatedDependencies(),
+                        System.nanoTime() - start, estimatedRetainedBytes()));
+            });
+        }
+
+        private long estimatedRetainedBytes() {
+            long bytes = symbols.estimatedRetainedBytes();
+            for (Classpath classpath : sourceSetToClasspath.values()) {
+                bytes += classpath.types.estimatedRetainedBytes();
+            }
+            return bytes;
+        }
+
+        /**
+         * @return whether any source set of the project uses the artifact
+         */
         public boolean isInUse(JavaProject project, GroupArtifact ga) {
-            Set<String> typesInUse = projectToTypesInUse.computeIfAbsent(project, k -> new HashSet<>());
-            for (String type : typesInUse) {
-                if (ga.equals(typeFqnToGA.get(type))) {
+            return isInUse(project, null, symbols.findArtifactId(ga));
+        }
+
+        public boolean isInUse(JavaProject project, String sourceSetName, GroupArtifact ga) {
+            return isInUse(project, sourceSetName, symbols.findArtifactId(ga));
+        }
+
+        /**
+         * @param sourceSetName the source set that has to use the artifact, or null for any
+         */
+        private boolean isInUse(JavaProject project, @Nullable String sourceSetName, int artifactId) {
+            Map<String, BitSet> sourceSetToArtifactsInUse = projectToArtifactsInUse.get(project);
+            if (sourceSetToArtifactsInUse == null || artifactId < 0) {
+                return false;
+            }
+            if (sourceSetName != null) {
+                BitSet artifactsInUse = sourceSetToArtifactsInUse.get(sourceSetName);
+                return artifactsInUse != null && isSet(artifactsInUse, artifactId);
+            }
+            for (BitSet artifactsInUse : sourceSetToArtifactsInUse.values()) {
+                if (isSet(artifactsInUse, artifactId)) {
                     return true;
                 }
             }
             return false;
         }
 
+        /**
+         * Makes the usage of the declared dependencies of a project known, so that its source files can be skipped
+         * once each is used by the required source sets. Only the first call for a project has an effect.
+         *
+         * @param requiredSourceSets for each declared dependency, the source sets that have to use it, with null
+         *                           standing for any source set
+         */
+        public void recordDeclaredDependencies(JavaProject project, Map<GroupArtifact, List<@Nullable String>> requiredSourceSets) {
+            List<RequiredUsage> requiredUsages = new ArrayList<>();
+            for (Map.Entry<GroupArtifact, List<@Nullable String>> required : requiredSourceSets.entrySet()) {
+                int artifactId = symbols.artifactId(required.getKey());
+                for (String sourceSetName : required.getValue()) {
+                    requiredUsages.add(new RequiredUsage(artifactId, sourceSetName));
+                }
+            }
+            if (projectToRequiredUsages.putIfAbsent(project, requiredUsages) == null) {
+                checkRequiredUsages(project);
+            }
+        }
+
+        /**
+         * @return whether all declared dependencies of the project are known to be used, so that its source files
+         * need not be analyzed anymore
+         */
+        public boolean isFullyUsed(JavaProject project) {
+            return fullyUsedProjects.contains(project);
+        }
+
+        private void checkRequiredUsages(JavaProject project) {
+            List<RequiredUsage> requiredUsages = projectToRequiredUsages.get(project);
+            if (requiredUsages == null) {
+                return;
+            }
+            synchronized (requiredUsages) {
+                requiredUsages.removeIf(required -> isInUse(project, required.sourceSetName, required.artifactId));
+                if (requiredUsages.isEmpty()) {
+                    fullyUsedProjects.add(project);
+                }
+            }
+        }
+
+        private static boolean isSet(BitSet artifactsInUse, int artifactId) {
+            synchronized (artifactsInUse) {
+                return artifactsInUse.get(artifactId);
+            }
+        }
+
         public void recordTypesInUse(JavaSourceFile cu) {
-            TypesInUse types = cu.getTypesInUse();
             JavaProject javaProject = cu.getMarkers().findFirst(JavaProject.class).orElse(null);
             JavaSourceSet javaSourceSet = cu.getMarkers().findFirst(JavaSourceSet.class).orElse(null);
             if (javaSourceSet == null || javaProject == null) {
                 return;
             }
-            recordTypesInUse(types, javaProject, javaSourceSet);
+            if (isFullyUsed(javaProject)) {
+                retainCachedTypes(cu);
+                return;
+            }
+            long start = metrics == null ? 0 : System.nanoTime();
+            byte[] checksum = scanCache == null ? null : ScanCache.checksum(cu);
+            if (scanCache == null || checksum == null) {
+                TypesInUse typesInUse = cu.getTypesInUse();
+                long typesInUseEnd = metrics == null ? 0 : System.nanoTime();
+                recordTypesInUse(typesInUse, javaProject, javaSourceSet);
+                if (metrics != null) {
+                    metrics.sourceFileScanned(javaProject, typesInUse.getTypesInUse().size(), typesInUseEnd - start, System.nanoTime() - start);
+                }
+                return;
+            }
+            String sourcePath = cu.getSourcePath().toString();
+            byte[] classpathChecksum = classpathChecksum(javaSourceSet);
+            String[] referencedTypes = scanCache.get(sourcePath, checksum, classpathChecksum);
+            if (referencedTypes == null) {
+                List<String> fqns = new ArrayList<>();
+                for (JavaType type : cu.getTypesInUse().getTypesInUse()) {
+                    if (type instanceof JavaType.FullyQualified) {
+                        fqns.add(((JavaType.FullyQualified) type).getFullyQualifiedName());
+                    }
+                }
+                referencedTypes = fqns.toArray(new String[0]);
+                scanCache.put(sourcePath, checksum, classpathChecksum, referencedTypes);
+            }
+            long typesInUseEnd = metrics == null ? 0 : System.nanoTime();
+            recordReferencedTypes(Arrays.asList(referencedTypes), javaProject, javaSourceSet);
+            if (metrics != null) {
+                metrics.sourceFileScanned(javaProject, referencedTypes.length, typesInUseEnd - start, System.nanoTime() - start);
+            }
+        }
+
+        /**
+         * Keeps the cached types of a source file skipped because its project is fully used, as a later run may
+         * need them once the project declares another dependency.
+         */
+        private void retainCachedTypes(JavaSourceFile cu) {
+            if (scanCache != null) {
+                scanCache.retain(cu.getSourcePath().toString());
+            }
+        }
+
+        private byte[] classpathChecksum(JavaSourceSet javaSourceSet) {
+            return sourceSetToClasspathChecksum.computeIfAbsent(javaSourceSet.getId(),
+                    id -> ScanCache.classpathChecksum(javaSourceSet.getGavToTypes().keySet()));
+        }
+
+        /**
+         * Records the types referenced by the compiled classes of the source file's source set, once per source set.
+         *
+         * @param baseDirectory the directory source paths are relative to
+         * @return false if the source set has no compiled classes, so that the source file has to be scanned instead
+         */
+        public boolean recordCompiledClasses(JavaSourceFile cu, Path baseDirectory, ExecutionContext ctx) {
+            JavaProject javaProject = cu.getMarkers().findFirst(JavaProject.class).orElse(null);
+            JavaSourceSet javaSourceSet = cu.getMarkers().findFirst(JavaSourceSet.class).orElse(null);
+            if (javaSourceSet == null || javaProject == null) {
+                return true;
+            }
+            if (isFullyUsed(javaProject)) {
+                retainCachedTypes(cu);
+                return true;
+            }
+            return sourceSetToCompiledClasses.computeIfAbsent(javaSourceSet.getId(), id -> {
+                Path projectDirectory = projectDirectory(cu.getSourcePath(), javaSourceSet.getName());
+                List<Path> outputDirectories = projectDirectory == null ? Collections.emptyList() :
+                        ClassFiles.outputDirectories(baseDirectory.resolve(projectDirectory), javaSourceSet.getName());
+                if (outputDirectories.isEmpty()) {
+                    return false;
+                }
+                Set<String> referencedTypes = new HashSet<>();
+                for (Path outputDirectory : outputDirectories) {
+                    try {
+                        ClassFiles.referencedTypes(outputDirectory, referencedTypes::add);
+                    } catch (IOException e) {
+                        ctx.getOnError().accept(e);
+                    }
+                }
+                recordReferencedTypes(referencedTypes, javaProject, javaSourceSet);
+                return true;
+            });
+        }
+
+        /**
+         * @return the directory containing {@code src/<source set>} that the source path lies in, if any
+         */
+        private static @Nullable Path projectDirectory(Path sourcePath, String sourceSetName) {
+            for (int i = 0; i < sourcePath.getNameCount() - 1; i++) {
+                if ("src".equals(sourcePath.getName(i).toString()) && sourceSetName.equals(sourcePath.getName(i + 1).toString())) {
+                    return i == 0 ? Paths.get("") : sourcePath.subpath(0, i);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Records the types referenced by a source file without type attribution, as found by the collectors
+         * accepting it.
+         */
+        public void recordCollectedTypes(SourceFile sourceFile, List<UsageCollector> collectors) {
+            JavaProject javaProject = sourceFile.getMarkers().findFirst(JavaProject.class).orElse(null);
+            JavaSourceSet javaSourceSet = sourceFile.getMarkers().findFirst(JavaSourceSet.class).orElse(null);
+            if (javaSourceSet == null || javaProject == null || isFullyUsed(javaProject)) {
+                return;
+            }
+            List<String> referencedTypes = new ArrayList<>();
+            for (UsageCollector collector : collectors) {
+                if (collector.accepts(sourceFile)) {
+                    collector.collect(sourceFile, referencedTypes::add);
+                }
+            }
+            if (!referencedTypes.isEmpty()) {
+                recordReferencedTypes(referencedTypes, javaProject, javaSourceSet);
+            }
         }
 
         public void recordTypesInUse(TypesInUse types, JavaProject javaProject, JavaSourceSet javaSourceSet) {
-            projectToTypesInUse.compute(javaProject, (k, v) -> {
-                if (v == null) {
-                    v = new HashSet<>();
-                }
-                types.getTypesInUse().stream()
-                        .filter(JavaType.FullyQualified.class::isInstance)
-                        .map(JavaType.FullyQualified.class::cast)
-                        .map(JavaType.FullyQualified::getFullyQualifiedName)
-                        .forEach(v::add);
-                return v;
+            if (isFullyUsed(javaProject)) {
+                return;
+            }
+            Classpath classpath = classpath(javaProject, javaSourceSet);
+            // resolve each referenced type to its artifact right away, so that isInUse is a single lookup
+            BitSet used = new BitSet();
+            for (JavaType type : types.getTypesInUse()) {
+                if (type instanceof JavaType.FullyQualified) {
+                    resolve(((JavaType.FullyQualified) type).getFullyQualifiedName(), classpath, used);
+                }
+            }
+            recordArtifactsInUse(javaProject, javaSourceSet, used);
+        }
+
+        /**
+         * Records references to types given by their fully qualified names, e.g. when they do not come from
+         * the type attribution of a source file.
+         */
+        public void recordReferencedTypes(Collection<String> typeFqns, JavaProject javaProject, JavaSourceSet javaSourceSet) {
+            if (isFullyUsed(javaProject)) {
+                return;
+            }
+            Classpath classpath = classpath(javaProject, javaSourceSet);
+            BitSet used = new BitSet();
+            for (String fqn : typeFqns) {
+                resolve(fqn, classpath, used);
+            }
+            recordArtifactsInUse(javaProject, javaSourceSet, used);
+        }
+
+        private void resolve(String fqn, Classpath classpath, BitSet used) {
+            if (!classpath.types.mightContain(fqn)) {
+                return;
+            }
+            // a type provided by several artifacts on the classpath credits all of them, as which one the
+            // compiler picks is unknown and crediting any single one might report the others as unused
+            int[] artifactIds = symbols.artifactIdsOf(fqn);
+            if (artifactIds != null) {
+                for (int artifactId : artifactIds) {
+                    if (classpath.artifactIds.get(artifactId)) {
+                        used.set(artifactId);
+                    }
+                }
+            }
+        }
+
+        private void recordArtifactsInUse(JavaProject javaProject, JavaSourceSet javaSourceSet, BitSet used) {
+            BitSet artifactsInUse = projectToArtifactsInUse.computeIfAbsent(javaProject, k -> new ConcurrentHashMap<>())
+                    .computeIfAbsent(javaSourceSet.getName(), k -> new BitSet());
+            synchronized (artifactsInUse) {
+                artifactsInUse.or(used);
+            }
+            checkRequiredUsages(javaProject);
+        }
+
+        /**
+         * All files of a source set share its classpath, so it is resolved to artifact ids only once per source set.
+         */
+        private Classpath classpath(JavaProject javaProject, JavaSourceSet javaSourceSet) {
+            Classpath classpath = sourceSetToClasspath.computeIfAbsent(javaSourceSet.getId(), id -> {
+                long start = metrics == null ? 0 : System.nanoTime();
+                BitSet artifactIds = new BitSet();
+                List<ArtifactTypes> typeTables = new ArrayList<>(javaSourceSet.getGavToTypes().size());
+                int packageCount = 0;
+                for (Map.Entry<String, List<JavaType.FullyQualified>> gavToTypes : javaSourceSet.getGavToTypes().entrySet()) {
+                    ArtifactTypes types = artifactTypes(gavToTypes.getKey(), gavToTypes.getValue());
+                    artifactIds.set(register(gavToTypes.getKey(), types));
+                    typeTables.add(types);
+                    packageCount += types.packages().length;
+                }
+                TypeFilter types = new TypeFilter(packageCount);
+                for (ArtifactTypes typeTable : typeTables) {
+                    for (String packageName : typeTable.packages()) {
+                        types.addPackage(packageName);
+                    }
+                }
+                if (metrics != null) {
+                    metrics.classpathResolved(javaProject, System.nanoTime() - start);
+                }
+                return new Classpath(artifactIds, types);
             });
-            for (Map.Entry<String, List<JavaType.FullyQualified>> gavToTypes : javaSourceSet.getGavToTypes().entrySet()) {
-                String[] gav = gavToTypes.getKey().split(":");
-                String group = gav[0];
-                String artifact = gav[1];
-                GroupArtifact ga = new GroupArtifact(group, artifact);
-                for (JavaType.FullyQualified type : gavToTypes.getValue()) {
-                    String fqn = type.getFullyQualifiedName();
-                    typeFqnToGA.put(fqn, ga);
+            if (streaming && projectToSourceSets.computeIfAbsent(javaProject, p -> ConcurrentHashMap.newKeySet()).add(javaSourceSet.getId())) {
+                BitSet artifactIds = classpath.artifactIds;
+                for (int artifactId = artifactIds.nextSetBit(0); artifactId >= 0; artifactId = artifactIds.nextSetBit(artifactId + 1)) {
+                    artifactToProjects.computeIfAbsent(artifactId, a -> ConcurrentHashMap.newKeySet()).add(javaProject);
                 }
             }
+            return classpath;
+        }
+
+        /**
+         * The types of an artifact version are added to the symbol table by the first source set having it on its classpath.
+         */
+        private int register(String gav, ArtifactTypes types) {
+            return gavToArtifactId.computeIfAbsent(gav, k -> {
+                String[] parts = gav.split(":");
+                int artifactId = symbols.artifactId(new GroupArtifact(parts[0], parts[1]));
+                symbols.addTypes(types, artifactId);
+                return artifactId;
+            });
+        }
+
+        /**
+         * @return the types of an artifact version in its type table, together with those found in its jar by the
+         * class index, if any
+         */
+        private ArtifactTypes artifactTypes(String gav, List<JavaType.FullyQualified> types) {
+            if (typeTableCache == null) {
+                return collectArtifactTypes(gav, types);
+            }
+            return typeTableCache.get(gav, classIndex != null, () -> collectArtifactTypes(gav, types));
+        }
+
+        private ArtifactTypes collectArtifactTypes(String gav, List<JavaType.FullyQualified> types) {
+            Set<String> typeNames = new LinkedHashSet<>();
+            for (JavaType.FullyQualified type : types) {
+                typeNames.add(type.getFullyQualifiedName());
+            }
+            return ArtifactTypes.of(typeNames, classIndex == null ? null : classIndex.get(gav));
+        }
+
+        /**
+         * An artifact a project declares, and the source set that has to use it for it not to be reported, if any.
+         */
+        private static final class RequiredUsage {
+            final int artifactId;
+            final @Nullable String sourceSetName;
+
+            RequiredUsage(int artifactId, @Nullable String sourceSetName) {
+                this.artifactId = artifactId;
+                this.sourceSetName = sourceSetName;
+            }
+        }
+
+        /**
+         * The artifacts on the classpath of a source set and a filter over the types they provide.
+         */
+        private static final class Classpath {
+            final BitSet artifactIds;
+            final TypeFilter types;
+
+            Classpath(BitSet artifactIds, TypeFilter types) {
+                this.artifactIds = artifactIds;
+                this.types = types;
+            }
         }
     }
 
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.bytecode;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Finds the types referenced by compiled classes in their constant pools, which name every class the code refers
+ * to, every type in a descriptor or generic signature and every annotation type, whether or not it is retained
+ * at runtime.
+ * <p>
+ * String constants that look like fully qualified class names are reported as well, to catch reflective
+ * references like {@code Class.forName("com.example.Driver")}.
+ */
+public final class ClassFiles {
+    private static final int MAGIC = 0xCAFEBABE;
+
+    private static final int UTF8 = 1;
+    private static final int CLASS = 7;
+    private static final int STRING = 8;
+
+    private static final byte CLASS_NAME = 1;
+    private static final byte STRING_VALUE = 2;
+
+    private static final String[] LANGUAGES = {"java", "kotlin", "groovy", "scala"};
+
+    private ClassFiles() {
+    }
+
+    /**
+     * @return the existing directories with the classes compiled from a source set of a project, in the Maven or
+     * Gradle layout
+     */
+    public static List<Path> outputDirectories(Path projectDirectory, String sourceSetName) {
+        List<Path> candidates = new ArrayList<>();
+        if ("main".equals(sourceSetName)) {
+            candidates.add(projectDirectory.resolve("target/classes"));
+        } else if ("test".equals(sourceSetName)) {
+            candidates.add(projectDirectory.resolve("target/test-classes"));
+        }
+        for (String language : LANGUAGES) {
+            candidates.add(projectDirectory.resolve("build/classes").resolve(language).resolve(sourceSetName));
+        }
+        List<Path> directories = new ArrayList<>();
+        for (Path candidate : candidates) {
+            if (Files.isDirectory(candidate)) {
+                directories.add(candidate);
+            }
+        }
+        return directories;
+    }
+
+    /**
+     * Reports the types referenced by all class files below the directory, reading each into a buffer that is
+     * reused across files.
+     */
+    public static void referencedTypes(Path directory, Consumer<String> types) throws IOException {
+        List<Path> classFiles;
+        try (Stream<Path> files = Files.walk(directory)) {
+            classFiles = files.filter(file -> file.toString().endsWith(".class") && Files.isRegularFile(file))
+                    .collect(Collectors.toList());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        for (Path classFile : classFiles) {
+            try (FileChannel channel = FileChannel.open(classFile)) {
+                long size = channel.size();
+                if (size > buffer.capacity()) {
+                    buffer = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE, Long.highestOneBit(size) << 1));
+                }
+                // called through Buffer, whose methods ByteBuffer only overrides as of Java 9
+                ((Buffer) buffer).clear();
+                ((Buffer) buffer).limit((int) size);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new EOFException(classFile.toString());
+                    }
+                }
+                ((Buffer) buffer).flip();
+            }
+            referencedTypes(buffer, types);
+        }
+    }
+
+    /**
+     * Parses the constant pool of the class file in the buffer, from its position, without copying it.
+     */
+    public static void referencedTypes(ByteBuffer classFile, Consumer<String> types) throws IOException {
+        int base = classFile.position();
+        if (classFile.remaining() < 10 || classFile.getInt(base) != MAGIC) {
+            throw new IOException("Not a class file");
+        }
+        int count = classFile.getShort(base + 8) & 0xffff;
+        int[] offsets = new int[count];
+        byte[] tags = new byte[count];
+        int pos = base + 10;
+        for (int i = 1; i < count; i++) {
+            int tag = classFile.get(pos);
+            tags[i] = (byte) tag;
+            offsets[i] = pos;
+            switch (tag) {
+                case UTF8:
+                    pos += 3 + (classFile.getShort(pos + 1) & 0xffff);
+                    break;
+                case 3: // Integer
+                case 4: // Float
+                case 9: // Fieldref
+                case 10: // Methodref
+                case 11: // InterfaceMethodref
+                case 12: // NameAndType
+                case 17: // Dynamic
+                case 18: // InvokeDynamic
+                    pos += 5;
+                    break;
+                case 5: // Long
+                case 6: // Double
+                    pos += 9;
+                    i++;
+                    break;
+                case CLASS:
+                case STRING:
+                case 16: // MethodType
+                case 19: // Module
+                case 20: // Package
+                    pos += 3;
+                    break;
+                case 15: // MethodHandle
+                    pos += 4;
+                    break;
+                default:
+                    throw new IOException("Unknown constant pool tag " + tag);
+            }
+        }
+
+        byte[] roles = new byte[count];
+        for (int i = 1; i < count; i++) {
+            if (tags[i] == CLASS) {
+                roles[classFile.getShort(offsets[i] + 1) & 0xffff] = CLASS_NAME;
+            } else if (tags[i] == STRING) {
+                int utf8 = classFile.getShort(offsets[i] + 1) & 0xffff;
+                if (roles[utf8] == 0) {
+                    roles[utf8] = STRING_VALUE;
+                }
+            }
+        }
+
+        for (int i = 1; i < count; i++) {
+            if (tags[i] != UTF8) {
+                continue;
+            }
+            int start = offsets[i] + 3;
+            int end = start + (classFile.getShort(offsets[i] + 1) & 0xffff);
+            if (start == end) {
+                continue;
+            }
+            if (roles[i] == CLASS_NAME) {
+                if (classFile.get(start) == '[') {
+                    descriptorTypes(classFile, start, end, types);
+                } else {
+                    types.accept(typeName(classFile, start, end));
+                }
+            } else if (roles[i] == STRING_VALUE) {
+                if (isQualifiedName(classFile, start, end)) {
+                    types.accept(decode(classFile, start, end));
+                }
+            } else if (contains(classFile, start, end, ';')) {
+                descriptorTypes(classFile, start, end, types);
+            }
+        }
+    }
+
+    /**
+     * Reports the class types of a field or method descriptor or of a generic signature.
+     */
+    private static void descriptorTypes(ByteBuffer classFile, int start, int end, Consumer<String> types) {
+        int i = start;
+        while (i < end) {
+            byte c = classFile.get(i);
+            if (c == 'L') {
+                int j = i + 1;
+                while (j < end && classFile.get(j) != ';' && classFile.get(j) != '<') {
+                    j++;
+                }
+                types.accept(typeName(classFile, i + 1, j));
+                i = j;
+            } else if (c == 'T') {
+                // a type variable
+                while (i < end && classFile.get(i) != ';') {
+                    i++;
+                }
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private static boolean contains(ByteBuffer classFile, int start, int end, char c) {
+        for (int i = start; i < end; i++) {
+            if (classFile.get(i) == c) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isQualifiedName(ByteBuffer classFile, int start, int end) {
+        boolean segmentStart = true;
+        boolean qualified = false;
+        for (int i = start; i < end; i++) {
+            int c = classFile.get(i);
+            if (c == '.') {
+                if (segmentStart) {
+                    return false;
+                }
+                segmentStart = true;
+                qualified = true;
+            } else if (c < 0 || (segmentStart ? Character.isJavaIdentifierStart(c) : Character.isJavaIdentifierPart(c))) {
+                // non ASCII characters are accepted as identifier parts
+                segmentStart = false;
+            } else {
+                return false;
+            }
+        }
+        return qualified && !segmentStart;
+    }
+
+    /**
+     * Turns an internal name into the fully qualified name used for types, e.g. {@code com.example.Outer}.
+     */
+    private static String typeName(ByteBuffer classFile, int start, int end) {
+        return decode(classFile, start, end).replace('/', '.');
+    }
+
+    private static String decode(ByteBuffer classFile, int start, int end) {
+        char[] ascii = new char[end - start];
+        for (int i = start; i < end; i++) {
+            byte b = classFile.get(i);
+            if (b < 0) {
+                byte[] bytes = new byte[end - start];
+                for (int j = start; j < end; j++) {
+                    bytes[j - start] = classFile.get(j);
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+            ascii[i - start] = (char) b;
+        }
+        return new String(ascii);
+    }
+}
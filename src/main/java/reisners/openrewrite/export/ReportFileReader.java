@@ -0,0 +1,125 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.export;
+
+import org.jspecify.annotations.Nullable;
+import reisners.openrewrite.table.UnusedDependencyReport;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static reisners.openrewrite.export.ReportFileWriter.*;
+
+/**
+ * Reads a file written by {@link ReportFileWriter} one block at a time, so that only the dictionary and the
+ * current block are held in memory.
+ */
+public final class ReportFileReader implements Closeable {
+    private final Path file;
+    private final DataInputStream in;
+    private final List<String> dictionary = new ArrayList<>();
+
+    public ReportFileReader(Path file) throws IOException {
+        this.file = file;
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a report file of version " + VERSION + ": " + file);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads all rows of the file.
+     */
+    public static void read(Path file, Consumer<UnusedDependencyReport.Row> rows) throws IOException {
+        try (ReportFileReader reader = new ReportFileReader(file)) {
+            for (List<UnusedDependencyReport.Row> block = reader.readBlock(); block != null; block = reader.readBlock()) {
+                block.forEach(rows);
+            }
+        }
+    }
+
+    /**
+     * @return the rows of the next block, or null at the end of the file
+     */
+    public @Nullable List<UnusedDependencyReport.Row> readBlock() throws IOException {
+        int newStringCount = readVarInt(true);
+        if (newStringCount < 0) {
+            return null;
+        }
+        for (int i = 0; i < newStringCount; i++) {
+            byte[] utf8 = new byte[readVarInt(false)];
+            in.readFully(utf8);
+            dictionary.add(new String(utf8, StandardCharsets.UTF_8));
+        }
+        int rowCount = readVarInt(false);
+        String[][] columns = new String[COLUMNS][rowCount];
+        for (String[] column : columns) {
+            for (int r = 0; r < rowCount; r++) {
+                int id = readVarInt(false);
+                if (id >= dictionary.size()) {
+                    throw new IOException("Corrupt report file: " + file);
+                }
+                column[r] = dictionary.get(id);
+            }
+        }
+        List<UnusedDependencyReport.Row> rows = new ArrayList<>(rowCount);
+        for (int r = 0; r < rowCount; r++) {
+            rows.add(new UnusedDependencyReport.Row(
+                    columns[0][r],
+                    UnusedDependencyReport.DependencyType.valueOf(columns[1][r]),
+                    columns[2][r],
+                    columns[3][r],
+                    columns[4][r]));
+        }
+        return rows;
+    }
+
+    /**
+     * @param eofAllowed whether the end of the file may be reached before the first byte, which is then reported as -1
+     */
+    private int readVarInt(boolean eofAllowed) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (eofAllowed && shift == 0) {
+                    return -1;
+                }
+                throw new EOFException("Truncated report file: " + file);
+            }
+            value |= (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt report file: " + file);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
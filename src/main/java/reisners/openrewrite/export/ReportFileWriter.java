@@ -0,0 +1,126 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.export;
+
+import reisners.openrewrite.table.UnusedDependencyReport;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Appends rows of the {@link UnusedDependencyReport} to a report file as they are found.
+ * <p>
+ * The file starts with a header and consists of blocks. Each block holds the strings it uses for the first time,
+ * which extend a dictionary shared by all blocks of the file, followed by its rows column by column, each value
+ * being the dictionary index of a string. Indexes are written as variable length integers, so that a repeated
+ * project, groupId or artifactId takes one or two bytes.
+ * <p>
+ * The file is replaced by one holding only the header when it is created, at the latest when the first block is
+ * appended, and each block is appended with a single write, so that a file is readable up to its last block at any
+ * time.
+ */
+public final class ReportFileWriter {
+    static final int MAGIC = 0x55445252;
+    static final int VERSION = 1;
+    static final int COLUMNS = 5;
+
+    private final Path file;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private boolean created;
+
+    public ReportFileWriter(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Replaces the file with an empty report, unless done before, so that a run without rows to append still
+     * leaves a valid file rather than that of an earlier run or none.
+     */
+    public synchronized void create() throws IOException {
+        if (created) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(8);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, bytes.toByteArray());
+        created = true;
+    }
+
+    public synchronized void append(List<UnusedDependencyReport.Row> rows) throws IOException {
+        create();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + rows.size() * COLUMNS * 2);
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        int[][] columns = new int[COLUMNS][rows.size()];
+        ByteArrayOutputStream newStrings = new ByteArrayOutputStream();
+        int newStringCount = 0;
+        for (int r = 0; r < rows.size(); r++) {
+            String[] values = values(rows.get(r));
+            for (int c = 0; c < COLUMNS; c++) {
+                Integer id = dictionary.get(values[c]);
+                if (id == null) {
+                    id = dictionary.size();
+                    dictionary.put(values[c], id);
+                    byte[] utf8 = values[c].getBytes(StandardCharsets.UTF_8);
+                    writeVarInt(newStrings, utf8.length);
+                    newStrings.write(utf8);
+                    newStringCount++;
+                }
+                columns[c][r] = id;
+            }
+        }
+        writeVarInt(out, newStringCount);
+        newStrings.writeTo(out);
+        writeVarInt(out, rows.size());
+        for (int[] column : columns) {
+            for (int id : column) {
+                writeVarInt(out, id);
+            }
+        }
+
+        Files.write(file, bytes.toByteArray(), StandardOpenOption.APPEND);
+    }
+
+    private static String[] values(UnusedDependencyReport.Row row) {
+        return new String[]{row.getProject(), row.getDependencyType().name(), row.getGroupId(), row.getArtifactId(), row.getScope()};
+    }
+
+    static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
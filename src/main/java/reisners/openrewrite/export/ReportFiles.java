@@ -0,0 +1,62 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.export;
+
+import reisners.openrewrite.table.UnusedDependencyReport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges report files, e.g. those of the runs against many repositories, into one.
+ */
+public final class ReportFiles {
+    private static final int ROWS_PER_BLOCK = 4096;
+
+    private ReportFiles() {
+    }
+
+    /**
+     * Copies the rows of all input files to the output file in a single pass over each, collecting them into
+     * blocks sharing one dictionary.
+     *
+     * @return the number of rows merged
+     */
+    public static long merge(Iterable<Path> inputs, Path output) throws IOException {
+        ReportFileWriter writer = new ReportFileWriter(output);
+        List<UnusedDependencyReport.Row> block = new ArrayList<>(ROWS_PER_BLOCK);
+        long rows = 0;
+        for (Path input : inputs) {
+            try (ReportFileReader reader = new ReportFileReader(input)) {
+                for (List<UnusedDependencyReport.Row> next = reader.readBlock(); next != null; next = reader.readBlock()) {
+                    block.addAll(next);
+                    if (block.size() >= ROWS_PER_BLOCK) {
+                        writer.append(block);
+                        rows += block.size();
+                        block.clear();
+                    }
+                }
+            }
+        }
+        if (!block.isEmpty() || rows == 0) {
+            writer.append(block);
+            rows += block.size();
+        }
+        return rows;
+    }
+}
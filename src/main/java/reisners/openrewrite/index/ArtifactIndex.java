@@ -0,0 +1,237 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.index;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The sorted fully qualified names of the classes of one artifact version, read from a memory-mapped index file.
+ * <p>
+ * The file consists of a header, a table of the offsets of the names and the UTF-8 encoded names themselves,
+ * so that a name can be looked up by binary search without decoding the others. Types are resolved against the
+ * mapped names as they are referenced; only the distinct packages are ever decoded as a whole.
+ */
+public final class ArtifactIndex extends AbstractList<String> {
+    private static final int MAGIC = 0x55444349;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final int namesStart;
+
+    private ArtifactIndex(ByteBuffer buffer) throws IOException {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a class index of version " + VERSION);
+        }
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        this.namesStart = HEADER_SIZE + (size + 1) * 4;
+    }
+
+    public static ArtifactIndex read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return new ArtifactIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Writes the index of the given class names atomically, so that concurrent runs never read a partial file.
+     */
+    public static void write(Path file, Iterable<String> classNames) throws IOException {
+        byte[] encoded = encode(classNames);
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, encoded);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * An index of the given class names kept on the heap only, for artifact versions whose index must not outlive the run.
+     */
+    public static ArtifactIndex of(Iterable<String> classNames) throws IOException {
+        return new ArtifactIndex(ByteBuffer.wrap(encode(classNames)));
+    }
+
+    private static byte[] encode(Iterable<String> classNames) throws IOException {
+        TreeSet<String> sorted = new TreeSet<>();
+        classNames.forEach(sorted::add);
+        List<byte[]> names = new ArrayList<>(sorted.size());
+        for (String name : sorted) {
+            names.add(name.getBytes(StandardCharsets.UTF_8));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(names.size());
+            int offset = 0;
+            for (byte[] name : names) {
+                out.writeInt(offset);
+                offset += name.length;
+            }
+            out.writeInt(offset);
+            for (byte[] name : names) {
+                out.write(name);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public String get(int index) {
+        int start = offset(index);
+        byte[] bytes = new byte[offset(index + 1) - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(namesStart + start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the distinct packages of the classes, the empty string standing for the default package. As the
+     * names are sorted, a package is only decoded where it differs from that of the name before.
+     */
+    public Set<String> packages() {
+        Set<String> packages = new LinkedHashSet<>();
+        int previousStart = -1;
+        int previousLength = -1;
+        for (int i = 0; i < size; i++) {
+            int start = namesStart + offset(i);
+            int length = 0;
+            for (int j = namesStart + offset(i + 1) - 1; j >= start; j--) {
+                if (buffer.get(j) == '.') {
+                    length = j - start;
+                    break;
+                }
+            }
+            if (previousStart < 0 || !regionEquals(previousStart, previousLength, start, length)) {
+                byte[] bytes = new byte[length];
+                for (int j = 0; j < length; j++) {
+                    bytes[j] = buffer.get(start + j);
+                }
+                packages.add(new String(bytes, StandardCharsets.UTF_8));
+                previousStart = start;
+                previousLength = length;
+            }
+        }
+        return packages;
+    }
+
+    private boolean regionEquals(int start, int length, int otherStart, int otherLength) {
+        if (length != otherLength) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(start + i) != buffer.get(otherStart + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks the name up by binary search over the mapped names, without allocating unless it has characters
+     * outside of ASCII.
+     */
+    @Override
+    public boolean contains(Object o) {
+        if (!(o instanceof String)) {
+            return false;
+        }
+        String key = (String) o;
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(mid, key);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int offset(int index) {
+        return buffer.getInt(HEADER_SIZE + index * 4);
+    }
+
+    /**
+     * Compares ASCII characters with the encoded bytes in place, falling back to encoding the key at the first
+     * other character.
+     */
+    private int compare(int index, String key) {
+        int start = namesStart + offset(index);
+        int length = offset(index + 1) - offset(index);
+        int n = Math.min(length, key.length());
+        for (int i = 0; i < n; i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                return compare(index, key.getBytes(StandardCharsets.UTF_8));
+            }
+            int cmp = (buffer.get(start + i) & 0xff) - c;
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        // a name that is a prefix of the other sorts first, whatever the characters of the other that follow
+        return length - key.length();
+    }
+
+    /**
+     * Compares unsigned bytes, i.e. by code point, which agrees with the order the names were sorted in as long
+     * as they consist of characters from the basic multilingual plane.
+     */
+    private int compare(int index, byte[] key) {
+        int start = namesStart + offset(index);
+        int length = offset(index + 1) - offset(index);
+        int n = Math.min(length, key.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = (buffer.get(start + i) & 0xff) - (key[i] & 0xff);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return length - key.length;
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.index;
+
+import org.jspecify.annotations.Nullable;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.maven.MavenExecutionContextView;
+import org.openrewrite.maven.tree.MavenRepository;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Finds the classes contained in artifact versions by reading the central directory of their jars, without
+ * inflating any entry, and keeps the result as one {@link ArtifactIndex} file per artifact version in a
+ * directory, to be reused by later runs.
+ * <p>
+ * Jars are looked up in Maven local repository and Gradle cache layouts below the given repository roots.
+ * Snapshot versions are indexed from their jar in every run and never kept, as their content may change between
+ * runs.
+ */
+public final class ClassIndex {
+    private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+    private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+
+    private final Path directory;
+    private final List<Path> repositories;
+    private final Consumer<Throwable> onError;
+    private final Map<String, Optional<ArtifactIndex>> indexes = new ConcurrentHashMap<>();
+
+    /**
+     * @param onError receives failures to read a jar or an index file, whose artifact version is then left unindexed
+     */
+    public ClassIndex(Path directory, List<Path> repositories, Consumer<Throwable> onError) {
+        this.directory = directory;
+        this.repositories = repositories;
+        this.onError = onError;
+    }
+
+    /**
+     * Looks up jars in the Maven local repository configured in the execution context and in the Gradle cache.
+     */
+    public static ClassIndex create(Path directory, ExecutionContext ctx) {
+        List<Path> repositories = new ArrayList<>();
+        MavenRepository localRepository = MavenExecutionContextView.view(ctx).getLocalRepository();
+        if (localRepository.getUri().startsWith("file:")) {
+            repositories.add(Paths.get(URI.create(localRepository.getUri())));
+        }
+        String gradleUserHome = System.getenv("GRADLE_USER_HOME");
+        repositories.add((gradleUserHome == null ? Paths.get(System.getProperty("user.home"), ".gradle") : Paths.get(gradleUserHome))
+                .resolve("caches/modules-2/files-2.1"));
+        return new ClassIndex(directory, repositories, ctx.getOnError());
+    }
+
+    /**
+     * @param gav the coordinates as used in {@link org.openrewrite.java.marker.JavaSourceSet#getGavToTypes()}
+     * @return the index of the artifact version or null if its jar cannot be found
+     */
+    public @Nullable ArtifactIndex get(String gav) {
+        return indexes.computeIfAbsent(gav, this::load).orElse(null);
+    }
+
+    private Optional<ArtifactIndex> load(String gav) {
+        String[] parts = gav.split(":");
+        if (parts.length < 3) {
+            return Optional.empty();
+        }
+        boolean snapshot = parts[2].endsWith("-SNAPSHOT");
+        Path file = directory.resolve(parts[0]).resolve(parts[1]).resolve(parts[2] + ".idx");
+        try {
+            if (snapshot || !Files.isRegularFile(file)) {
+                Path jar = findJar(parts[0], parts[1], parts[2]);
+                if (jar == null) {
+                    return Optional.empty();
+                }
+                List<String> classNames = classNames(jar);
+                if (snapshot) {
+                    return Optional.of(ArtifactIndex.of(classNames));
+                }
+                ArtifactIndex.write(file, classNames);
+            }
+            return Optional.of(ArtifactIndex.read(file));
+        } catch (IOException e) {
+            onError.accept(e);
+            return Optional.empty();
+        }
+    }
+
+    private @Nullable Path findJar(String group, String artifact, String version) throws IOException {
+        String jarName = artifact + "-" + version + ".jar";
+        for (Path repository : repositories) {
+            Path maven = repository.resolve(group.replace('.', '/')).resolve(artifact).resolve(version).resolve(jarName);
+            if (Files.isRegularFile(maven)) {
+                return maven;
+            }
+            Path gradle = repository.resolve(group).resolve(artifact).resolve(version);
+            if (Files.isDirectory(gradle)) {
+                try (DirectoryStream<Path> hashes = Files.newDirectoryStream(gradle)) {
+                    for (Path hash : hashes) {
+                        if (Files.isRegularFile(hash.resolve(jarName))) {
+                            return hash.resolve(jarName);
+                        }
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the entry names from the central directory at the end of the memory-mapped jar.
+     */
+    static List<String> classNames(Path jar) throws IOException {
+        try (FileChannel channel = FileChannel.open(jar)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return classNamesOfZip64(jar);
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            int end = -1;
+            for (int i = (int) size - 22; i >= Math.max(0, (int) size - 22 - 0xffff); i--) {
+                if (buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+                    end = i;
+                    break;
+                }
+            }
+            if (end < 0) {
+                throw new ZipException("No central directory in " + jar);
+            }
+            int entries = buffer.getShort(end + 10) & 0xffff;
+            long offset = buffer.getInt(end + 16) & 0xffffffffL;
+            if (entries == 0xffff || offset == 0xffffffffL) {
+                return classNamesOfZip64(jar);
+            }
+            List<String> classNames = new ArrayList<>(entries);
+            int pos = (int) offset;
+            for (int i = 0; i < entries; i++) {
+                if (buffer.getInt(pos) != CENTRAL_DIRECTORY_HEADER) {
+                    throw new ZipException("Corrupt central directory in " + jar);
+                }
+                int nameLength = buffer.getShort(pos + 28) & 0xffff;
+                int extraLength = buffer.getShort(pos + 30) & 0xffff;
+                int commentLength = buffer.getShort(pos + 32) & 0xffff;
+                byte[] name = new byte[nameLength];
+                for (int j = 0; j < nameLength; j++) {
+                    name[j] = buffer.get(pos + 46 + j);
+                }
+                String className = className(new String(name, StandardCharsets.UTF_8));
+                if (className != null) {
+                    classNames.add(className);
+                }
+                pos += 46 + nameLength + extraLength + commentLength;
+            }
+            return classNames;
+        }
+    }
+
+    private static List<String> classNamesOfZip64(Path jar) throws IOException {
+        List<String> classNames = new ArrayList<>();
+        try (ZipFile zip = new ZipFile(jar.toFile())) {
+            Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                String className = className(entries.nextElement().getName());
+                if (className != null) {
+                    classNames.add(className);
+                }
+            }
+        }
+        return classNames;
+    }
+
+    static @Nullable String className(String entryName) {
+        if (!entryName.endsWith(".class")) {
+            return null;
+        }
+        String name = entryName;
+        if (name.startsWith("META-INF/versions/")) {
+            int slash = name.indexOf('/', "META-INF/versions/".length());
+            name = slash < 0 ? name : name.substring(slash + 1);
+        }
+        if (name.startsWith("META-INF/") || name.endsWith("module-info.class") || name.endsWith("package-info.class")) {
+            return null;
+        }
+        return name.substring(0, name.length() - ".class".length()).replace('/', '.');
+    }
+}
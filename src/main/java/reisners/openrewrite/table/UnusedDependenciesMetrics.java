@@ -0,0 +1,73 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.table;
+
+import lombok.Value;
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.Recipe;
+
+public class UnusedDependenciesMetrics extends DataTable<UnusedDependenciesMetrics.Row> {
+
+    public UnusedDependenciesMetrics(Recipe recipe) {
+        super(recipe,
+                "Unused dependencies metrics",
+                "Where the time and memory of finding unused dependencies go, per project.");
+    }
+
+    @Value
+    public static class Row {
+        @Column(displayName = "Project",
+                description = "Found in project")
+        String project;
+
+        @Column(displayName = "Source files",
+                description = "Number of source files scanned")
+        long sourceFiles;
+
+        @Column(displayName = "Referenced types",
+                description = "Number of types referenced by the scanned source files, counted once per file")
+        long referencedTypes;
+
+        @Column(displayName = "Scan time (ns)",
+                description = "Total time spent recording the types in use of the project's source files")
+        long scanTime;
+
+        @Column(displayName = "Types in use time (ns)",
+                description = "Part of the scan time spent finding the types in use of source files, or looking them up in the scan cache")
+        long typesInUseTime;
+
+        @Column(displayName = "Classpath time (ns)",
+                description = "Part of the scan time spent adding the types of the source sets' classpaths to the symbol table")
+        long classpathTime;
+
+        @Column(displayName = "Dependencies evaluated",
+                description = "Number of declared and transitive dependencies evaluated")
+        int dependencies;
+
+        @Column(displayName = "Evaluation time (ns)",
+                description = "Time spent evaluating the project's dependencies")
+        long evaluationTime;
+
+        @Column(displayName = "Evaluation time per dependency (ns)",
+                description = "Evaluation time divided by the number of dependencies evaluated")
+        long evaluationTimePerDependency;
+
+        @Column(displayName = "Accumulator size (bytes)",
+                description = "Estimated heap retained by the symbol table when the project was evaluated")
+        long accumulatorRetainedBytes;
+    }
+}
@@ -45,6 +45,10 @@ public class UnusedDependencyReport extends DataTable<UnusedDependencyReport.Row
         @Column(displayName = "ArtifactId",
                 description = "ArtifactId")
         String artifactId;
+
+        @Column(displayName = "Scope",
+                description = "Maven scope or Gradle configuration the dependency is declared in")
+        String scope;
     }
 
     public enum DependencyType {
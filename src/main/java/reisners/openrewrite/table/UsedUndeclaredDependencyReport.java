@@ -0,0 +1,53 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.table;
+
+import lombok.Value;
+import org.openrewrite.Column;
+import org.openrewrite.DataTable;
+import org.openrewrite.Recipe;
+
+public class UsedUndeclaredDependencyReport extends DataTable<UsedUndeclaredDependencyReport.Row> {
+
+    public UsedUndeclaredDependencyReport(Recipe recipe) {
+        super(recipe,
+                "Used undeclared dependency report",
+                "Transitive dependencies that are used but not declared.");
+    }
+
+    @Value
+    public static class Row {
+        @Column(displayName = "Project",
+                description = "Found in project")
+        String project;
+
+        @Column(displayName = "Dependency type",
+                description = "Type of dependency")
+        UnusedDependencyReport.DependencyType dependencyType;
+
+        @Column(displayName = "GroupId",
+                description = "GroupId")
+        String groupId;
+
+        @Column(displayName = "ArtifactId",
+                description = "ArtifactId")
+        String artifactId;
+
+        @Column(displayName = "Via",
+                description = "The declared dependency that brings it in, as groupId:artifactId")
+        String via;
+    }
+}
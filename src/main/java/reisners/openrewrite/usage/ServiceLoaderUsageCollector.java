@@ -0,0 +1,43 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.usage;
+
+import org.openrewrite.SourceFile;
+
+import java.util.function.Consumer;
+
+/**
+ * Service provider configuration files in {@code META-INF/services} are named after the service type and list
+ * its implementations.
+ */
+public class ServiceLoaderUsageCollector implements UsageCollector {
+
+    @Override
+    public boolean accepts(SourceFile sourceFile) {
+        String path = UsageCollectors.path(sourceFile);
+        int services = path.lastIndexOf("META-INF/services/");
+        return services >= 0 && path.indexOf('/', services + "META-INF/services/".length()) < 0;
+    }
+
+    @Override
+    public void collect(SourceFile sourceFile, Consumer<String> referencedTypes) {
+        String serviceType = UsageCollectors.fileName(sourceFile);
+        if (UsageCollectors.isQualifiedName(serviceType, 0, serviceType.length())) {
+            referencedTypes.accept(serviceType);
+        }
+        UsageCollectors.classNames(UsageCollectors.text(sourceFile), referencedTypes);
+    }
+}
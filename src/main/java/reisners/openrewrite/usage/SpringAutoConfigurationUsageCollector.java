@@ -0,0 +1,47 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.usage;
+
+import org.openrewrite.SourceFile;
+
+import java.util.function.Consumer;
+
+/**
+ * Spring's {@code META-INF/spring.factories} map types to the implementations to load, and the
+ * {@code META-INF/spring/*.imports} files, like those of Spring Boot's auto-configuration, are named after an
+ * annotation type and list the classes it imports.
+ */
+public class SpringAutoConfigurationUsageCollector implements UsageCollector {
+
+    @Override
+    public boolean accepts(SourceFile sourceFile) {
+        String path = UsageCollectors.path(sourceFile);
+        return path.endsWith("META-INF/spring.factories") ||
+               path.contains("META-INF/spring/") && path.endsWith(".imports");
+    }
+
+    @Override
+    public void collect(SourceFile sourceFile, Consumer<String> referencedTypes) {
+        String fileName = UsageCollectors.fileName(sourceFile);
+        if (fileName.endsWith(".imports")) {
+            String annotationType = fileName.substring(0, fileName.length() - ".imports".length());
+            if (UsageCollectors.isQualifiedName(annotationType, 0, annotationType.length())) {
+                referencedTypes.accept(annotationType);
+            }
+        }
+        UsageCollectors.classNames(UsageCollectors.text(sourceFile), referencedTypes);
+    }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.usage;
+
+import org.openrewrite.SourceFile;
+
+import java.util.function.Consumer;
+
+/**
+ * Finds the types referenced by a kind of source file that is not type attributed, like resources naming classes
+ * to be loaded at runtime.
+ * <p>
+ * Implementations are discovered with {@link java.util.ServiceLoader}, so further ones can be added by putting them
+ * on the recipe's classpath.
+ */
+public interface UsageCollector {
+
+    boolean accepts(SourceFile sourceFile);
+
+    /**
+     * @param referencedTypes receives the fully qualified names of the types referenced by the source file
+     */
+    void collect(SourceFile sourceFile, Consumer<String> referencedTypes);
+}
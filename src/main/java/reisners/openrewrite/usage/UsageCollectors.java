@@ -0,0 +1,108 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.usage;
+
+import org.openrewrite.SourceFile;
+import org.openrewrite.text.PlainText;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.function.Consumer;
+
+public final class UsageCollectors {
+    private static volatile List<UsageCollector> collectors;
+
+    private UsageCollectors() {
+    }
+
+    /**
+     * @return the collectors found on the classpath of the recipe
+     */
+    public static List<UsageCollector> all() {
+        List<UsageCollector> all = collectors;
+        if (all == null) {
+            all = new ArrayList<>();
+            for (UsageCollector collector : ServiceLoader.load(UsageCollector.class, UsageCollector.class.getClassLoader())) {
+                all.add(collector);
+            }
+            collectors = all = Collections.unmodifiableList(all);
+        }
+        return all;
+    }
+
+    static String path(SourceFile sourceFile) {
+        return sourceFile.getSourcePath().toString().replace('\\', '/');
+    }
+
+    static String fileName(SourceFile sourceFile) {
+        return sourceFile.getSourcePath().getFileName().toString();
+    }
+
+    /**
+     * Plain text is used as is, other source files have to be printed.
+     */
+    static CharSequence text(SourceFile sourceFile) {
+        return sourceFile instanceof PlainText ? ((PlainText) sourceFile).getText() : sourceFile.printAll();
+    }
+
+    /**
+     * Reports the tokens of the text that are qualified class names, where tokens are separated by whitespace and
+     * the separators of properties files, and {@code #} starts a comment running to the end of the line.
+     */
+    static void classNames(CharSequence text, Consumer<String> classNames) {
+        int tokenStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i == text.length() ? '\n' : text.charAt(i);
+            if (c == '#' || Character.isWhitespace(c) || c == '=' || c == ':' || c == ',' || c == '\\') {
+                if (tokenStart >= 0) {
+                    if (isQualifiedName(text, tokenStart, i)) {
+                        classNames.accept(text.subSequence(tokenStart, i).toString());
+                    }
+                    tokenStart = -1;
+                }
+                if (c == '#') {
+                    while (i < text.length() && text.charAt(i) != '\n') {
+                        i++;
+                    }
+                }
+            } else if (tokenStart < 0) {
+                tokenStart = i;
+            }
+        }
+    }
+
+    static boolean isQualifiedName(CharSequence name, int start, int end) {
+        boolean segmentStart = true;
+        boolean qualified = false;
+        for (int i = start; i < end; i++) {
+            char c = name.charAt(i);
+            if (c == '.') {
+                if (segmentStart) {
+                    return false;
+                }
+                segmentStart = true;
+                qualified = true;
+            } else if (segmentStart ? Character.isJavaIdentifierStart(c) : Character.isJavaIdentifierPart(c)) {
+                segmentStart = false;
+            } else {
+                return false;
+            }
+        }
+        return qualified && !segmentStart;
+    }
+}
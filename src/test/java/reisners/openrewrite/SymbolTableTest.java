@@ -0,0 +1,110 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.Tree;
+import org.openrewrite.java.marker.JavaProject;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.maven.tree.GroupArtifact;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SymbolTableTest {
+
+    private static final GroupArtifact API = new GroupArtifact("org.example", "example-api");
+    private static final GroupArtifact SHADED = new GroupArtifact("org.example", "example-shaded");
+
+    @Test
+    void keepsAllArtifactsProvidingAType() {
+        SymbolTable symbols = new SymbolTable();
+        int api = symbols.artifactId(API);
+        int shaded = symbols.artifactId(SHADED);
+        ArtifactTypes apiTypes = ArtifactTypes.of(List.of("org.example.Foo"));
+        symbols.addTypes(apiTypes, api);
+        symbols.addTypes(ArtifactTypes.of(List.of("org.example.Foo", "org.example.internal.Bar")), shaded);
+        symbols.addTypes(apiTypes, api);
+
+        assertThat(symbols.artifactIdsOf("org.example.Foo")).containsExactly(api, shaded);
+        assertThat(symbols.artifactIdsOf("org.example.internal.Bar")).containsExactly(shaded);
+        assertThat(symbols.artifactIdsOf("org.example")).isNull();
+        assertThat(symbols.artifactIdsOf("org.example.Fo")).isNull();
+        assertThat(symbols.artifactIdsOf("org.example.Foo.Baz")).isNull();
+        assertThat(symbols.artifactIdsOf("org.example.internal.Foo")).isNull();
+        assertThat(symbols.typeCount()).isEqualTo(3);
+
+        BitSet removed = new BitSet();
+        removed.set(shaded);
+        symbols.removeTypes(removed);
+        assertThat(symbols.artifactIdsOf("org.example.Foo")).containsExactly(api);
+        assertThat(symbols.artifactIdsOf("org.example.internal.Bar")).isNull();
+        assertThat(symbols.typeCount()).isEqualTo(1);
+
+        symbols.addTypes(apiTypes, shaded);
+        assertThat(symbols.artifactIdsOf("org.example.Foo")).containsExactly(api, shaded);
+        assertThat(symbols.typeCount()).isEqualTo(2);
+    }
+
+    @Test
+    void findsTypesWhileOthersAreAdded() throws Exception {
+        SymbolTable symbols = new SymbolTable();
+        int api = symbols.artifactId(API);
+        List<String> types = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            types.add("org.example.pkg" + i % 10 + ".Type" + i);
+        }
+        symbols.addTypes(ArtifactTypes.of(types), api);
+        Thread writer = new Thread(() -> {
+            for (int a = 0; a < 1_000; a++) {
+                List<String> added = new ArrayList<>();
+                for (int i = 0; i < 20; i++) {
+                    added.add("org.example.pkg" + (a + i) % 50 + ".Added" + a + "_" + i);
+                }
+                symbols.addTypes(ArtifactTypes.of(added), symbols.artifactId(new GroupArtifact("org.example", "a" + a)));
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            for (String type : types) {
+                assertThat(symbols.artifactIdsOf(type)).containsExactly(api);
+            }
+            assertThat(symbols.findArtifactId(API)).isEqualTo(api);
+        }
+        writer.join();
+        assertThat(symbols.typeCount()).isEqualTo(20_100);
+        assertThat(symbols.artifactIdsOf("org.example.pkg7.Added999_8")).containsExactly(symbols.findArtifactId(new GroupArtifact("org.example", "a999")));
+    }
+
+    @Test
+    void creditsAllArtifactsOnTheClasspathProvidingAUsedType() {
+        JavaType.FullyQualified foo = JavaType.ShallowClass.build("org.example.Foo");
+        JavaSourceSet sourceSet = new JavaSourceSet(Tree.randomId(), "main", List.of(), Map.of(
+          "org.example:example-api:1.0", List.of(foo),
+          "org.example:example-shaded:1.0", List.of(foo, JavaType.ShallowClass.build("org.example.internal.Bar"))));
+        JavaProject project = new JavaProject(Tree.randomId(), "project", null);
+
+        UnusedDependencies.Accumulator acc = new UnusedDependencies.Accumulator();
+        acc.recordReferencedTypes(List.of("org.example.Foo", "java.lang.String"), project, sourceSet);
+        assertThat(acc.isInUse(project, API)).isTrue();
+        assertThat(acc.isInUse(project, SHADED)).isTrue();
+    }
+}
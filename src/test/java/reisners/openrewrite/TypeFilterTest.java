@@ -0,0 +1,44 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TypeFilterTest {
+
+    @Test
+    void neverRejectsTypesOfAddedPackagesAndRejectsMostOthers() {
+        TypeFilter filter = new TypeFilter(1_000);
+        for (int i = 0; i < 1_000; i++) {
+            filter.addPackage("org.example.pkg" + i);
+        }
+        filter.addPackage("");
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("org.example.pkg" + i % 1_000 + ".Type" + i)).isTrue();
+        }
+        assertThat(filter.mightContain("Type")).isTrue();
+        int passed = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (filter.mightContain("com.example.local" + i + ".Type")) {
+                passed++;
+            }
+        }
+        assertThat(passed).isLessThan(500);
+        assertThat(new TypeFilter(0).mightContain("java.lang.String")).isFalse();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.Tree;
+import org.openrewrite.java.marker.JavaProject;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.maven.tree.GroupArtifact;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TypeTableCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedArtifactVersionsBeyondMaximumWeight() {
+        ArtifactTypes types = ArtifactTypes.of(List.of("org.example.Foo", "org.example.Bar"));
+        ArtifactTypes none = ArtifactTypes.of(List.of());
+        TypeTableCache cache = new TypeTableCache(0);
+        long weight = types.estimatedRetainedBytes();
+        cache.setMaximumWeight(2 * weight);
+
+        assertThat(cache.get("org.example:a:1.0", false, () -> types)).isSameAs(types);
+        cache.get("org.example:b:1.0", false, () -> types);
+        assertThat(cache.get("org.example:a:1.0", false, () -> none)).isSameAs(types);
+        cache.get("org.example:c:1.0", false, () -> types);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getWeight()).isEqualTo(2 * weight);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+
+        // b was least recently used
+        assertThat(cache.get("org.example:b:1.0", false, () -> none)).isSameAs(none);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(4);
+
+        // snapshots are not cached
+        cache.get("org.example:d:1.0-SNAPSHOT", false, () -> types);
+        assertThat(cache.get("org.example:d:1.0-SNAPSHOT", false, () -> none)).isSameAs(none);
+    }
+
+    @Test
+    void keepsTypesWithAndWithoutClassIndexApart() {
+        ArtifactTypes indexed = ArtifactTypes.of(List.of("org.example.Foo", "org.example.Bar"));
+        ArtifactTypes fromTypeTable = ArtifactTypes.of(List.of("org.example.Foo"));
+        TypeTableCache cache = new TypeTableCache(1024 * 1024);
+
+        assertThat(cache.get("org.example:a:1.0", true, () -> indexed)).isSameAs(indexed);
+        assertThat(cache.get("org.example:a:1.0", false, () -> fromTypeTable)).isSameAs(fromTypeTable);
+        assertThat(cache.get("org.example:a:1.0", true, () -> fromTypeTable)).isSameAs(indexed);
+        assertThat(cache.get("org.example:a:1.0", false, () -> indexed)).isSameAs(fromTypeTable);
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getWeight()).isEqualTo(indexed.estimatedRetainedBytes() + fromTypeTable.estimatedRetainedBytes());
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void neverLowersMaximumWeightSetByAnotherRun() {
+        TypeTableCache cache = new TypeTableCache(0);
+        cache.raiseMaximumWeight(1024);
+        cache.raiseMaximumWeight(512);
+        assertThat(cache.getMaximumWeight()).isEqualTo(1024);
+    }
+
+    @Test
+    void sharesTypesOfArtifactVersionsAcrossAccumulators() {
+        TypeTableCache cache = new TypeTableCache(1024 * 1024);
+        JavaSourceSet sourceSet = new JavaSourceSet(Tree.randomId(), "main", List.of(), Map.of(
+          "org.example:foo:1.0", List.of(JavaType.ShallowClass.build("org.example.Foo"))));
+        GroupArtifact foo = new GroupArtifact("org.example", "foo");
+
+        for (int run = 0; run < 2; run++) {
+            UnusedDependencies.Accumulator acc = new UnusedDependencies.Accumulator(null, null, null, false, null, cache);
+            JavaProject project = new JavaProject(Tree.randomId(), "project", null);
+            acc.recordReferencedTypes(List.of("org.example.Foo"), project, sourceSet);
+            assertThat(acc.isInUse(project, foo)).isTrue();
+        }
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+}
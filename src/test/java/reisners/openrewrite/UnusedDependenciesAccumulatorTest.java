@@ -0,0 +1,421 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.Checksum;
+import org.openrewrite.ExecutionContext;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+import org.openrewrite.TreeVisitor;
+import org.openrewrite.gradle.marker.GradleDependencyConfiguration;
+import org.openrewrite.gradle.marker.GradleProject;
+import org.openrewrite.internal.InMemoryLargeSourceSet;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.internal.TypesInUse;
+import org.openrewrite.java.marker.JavaProject;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.java.tree.JavaSourceFile;
+import org.openrewrite.java.tree.JavaType;
+import org.openrewrite.marker.Markers;
+import org.openrewrite.maven.tree.Dependency;
+import org.openrewrite.maven.tree.GroupArtifact;
+import org.openrewrite.maven.tree.GroupArtifactVersion;
+import org.openrewrite.text.PlainText;
+import reisners.openrewrite.table.UnusedDependencyReport;
+
+import java.lang.ref.Reference;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UnusedDependenciesAccumulatorTest {
+
+    private static final String[] ARTIFACT_NAMES = {"guava", "slf4j-api", "commons-lang3"};
+
+    private static final List<GroupArtifact> GAS = List.of(
+      new GroupArtifact("com.google.guava", "guava"),
+      new GroupArtifact("org.slf4j", "slf4j-api"),
+      new GroupArtifact("org.apache.commons", "commons-lang3")
+    );
+
+    private final JavaSourceSet jssWithDependencies = JavaSourceSet.build("main", JavaParser.dependenciesFromClasspath(ARTIFACT_NAMES));
+
+    private final ExecutionContext ctx = new InMemoryExecutionContext(Throwable::printStackTrace);
+
+    @Test
+    void parallelScanMatchesSingleThreadedScan() throws Exception {
+        List<JavaProject> projects = IntStream.range(0, 40)
+          .mapToObj(i -> new JavaProject(Tree.randomId(), "project-" + i, null))
+          .toList();
+        List<JavaSourceFile> compilationUnits = generateCompilationUnits(projects, 4000);
+
+        UnusedDependencies recipe = new UnusedDependencies();
+        UnusedDependencies.Accumulator singleThreaded = recipe.getInitialValue(ctx);
+        TreeVisitor<?, ExecutionContext> scanner = recipe.getScanner(singleThreaded);
+        compilationUnits.forEach(cu -> scanner.visit(cu, ctx));
+
+        UnusedDependencies.Accumulator parallel = recipe.getInitialValue(ctx);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (JavaSourceFile cu : compilationUnits) {
+                futures.add(executor.submit(() -> recipe.getScanner(parallel).visit(cu, ctx)));
+            }
+            for (Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        for (int i = 0; i < projects.size(); i++) {
+            JavaProject project = projects.get(i);
+            for (int g = 0; g < GAS.size(); g++) {
+                GroupArtifact ga = GAS.get(g);
+                assertThat(parallel.isInUse(project, ga))
+                  .as("%s uses %s", project.getProjectName(), ga)
+                  .isEqualTo(singleThreaded.isInUse(project, ga))
+                  .isEqualTo(g < i % 4);
+            }
+        }
+    }
+
+    @Test
+    void reusesReferencedTypesOfUnchangedFilesFromPreviousRun(@TempDir Path cacheDirectory) throws Exception {
+        List<JavaProject> projects = IntStream.range(0, 4)
+          .mapToObj(i -> new JavaProject(Tree.randomId(), "project-" + i, null))
+          .toList();
+        List<JavaSourceFile> compilationUnits = withChecksums(generateCompilationUnits(projects, 40));
+        UnusedDependencies recipe = new UnusedDependencies().withScanCacheDirectory(cacheDirectory.toString());
+
+        UnusedDependencies.Accumulator firstRun = recipe.getInitialValue(ctx);
+        compilationUnits.forEach(cu -> recipe.getScanner(firstRun).visit(cu, ctx));
+        recipe.generate(firstRun, ctx);
+        assertThat(firstRun.getScanCache().getHits()).isZero();
+
+        UnusedDependencies.Accumulator secondRun = recipe.getInitialValue(ctx);
+        compilationUnits.forEach(cu -> recipe.getScanner(secondRun).visit(cu, ctx));
+        assertThat(secondRun.getScanCache().getHits()).isEqualTo(compilationUnits.size());
+        assertThat(secondRun.getScanCache().getMisses()).isZero();
+        for (JavaProject project : projects) {
+            for (GroupArtifact ga : GAS) {
+                assertThat(secondRun.isInUse(project, ga)).isEqualTo(firstRun.isInUse(project, ga));
+            }
+        }
+    }
+
+    @Test
+    void analyzesSourceFilesAgainWhoseClasspathChangedOrWithoutChecksum(@TempDir Path cacheDirectory) throws Exception {
+        JavaProject project = new JavaProject(Tree.randomId(), "project", null);
+        List<JavaSourceFile> compilationUnits = withChecksums(generateCompilationUnits(List.of(project), 4));
+        UnusedDependencies recipe = new UnusedDependencies().withScanCacheDirectory(cacheDirectory.toString());
+
+        UnusedDependencies.Accumulator firstRun = recipe.getInitialValue(ctx);
+        compilationUnits.forEach(cu -> recipe.getScanner(firstRun).visit(cu, ctx));
+        recipe.generate(firstRun, ctx);
+
+        // the same files on a classpath with another version of guava
+        JavaSourceSet upgraded = jssWithDependencies.withGavToTypes(jssWithDependencies.getGavToTypes().entrySet().stream()
+          .collect(Collectors.toMap(
+            gavToTypes -> gavToTypes.getKey().contains(":guava:") ? "com.google.guava:guava:999.0" : gavToTypes.getKey(),
+            Map.Entry::getValue)));
+        UnusedDependencies.Accumulator secondRun = recipe.getInitialValue(ctx);
+        compilationUnits.forEach(cu -> recipe.getScanner(secondRun).visit(
+          cu.<JavaSourceFile>withMarkers(cu.getMarkers().removeByType(JavaSourceSet.class).add(upgraded)), ctx));
+        assertThat(secondRun.getScanCache().getHits()).isZero();
+        assertThat(secondRun.getScanCache().getMisses()).isEqualTo(compilationUnits.size());
+
+        UnusedDependencies.Accumulator thirdRun = recipe.getInitialValue(ctx);
+        compilationUnits.forEach(cu -> recipe.getScanner(thirdRun).visit(cu.<JavaSourceFile>withChecksum(null), ctx));
+        assertThat(thirdRun.getScanCache().getHits()).isZero();
+        assertThat(thirdRun.getScanCache().getMisses()).isZero();
+        assertThat(thirdRun.isInUse(project, GAS.get(0))).isEqualTo(firstRun.isInUse(project, GAS.get(0)));
+    }
+
+    @Test
+    void retainsLittleHeapForLargeClasspaths() {
+        // 1M types in 200 artifacts, shared by the source sets of 20 modules
+        int artifactCount = 200;
+        int typesPerArtifact = 5_000;
+        int sourceSetCount = 20;
+        Map<String, List<JavaType.FullyQualified>> gavToTypes = new LinkedHashMap<>();
+        for (int a = 0; a < artifactCount; a++) {
+            List<JavaType.FullyQualified> types = new ArrayList<>(typesPerArtifact);
+            for (int t = 0; t < typesPerArtifact; t++) {
+                types.add(JavaType.ShallowClass.build("org.example" + a + ".pkg" + t % 50 + ".Type" + t));
+            }
+            gavToTypes.put("org.example" + a + ":artifact" + a + ":1.0", types);
+        }
+        List<JavaSourceSet> sourceSets = IntStream.range(0, sourceSetCount)
+          .mapToObj(i -> new JavaSourceSet(Tree.randomId(), "main", List.of(), gavToTypes))
+          .toList();
+        TypesInUse typesInUse = generateCompilationUnits(List.of(new JavaProject(Tree.randomId(), "template", null)), 1)
+          .get(0).getTypesInUse();
+
+        long before = usedHeap();
+        UnusedDependencies.Accumulator acc = new UnusedDependencies().getInitialValue(ctx);
+        for (int i = 0; i < sourceSetCount; i++) {
+            acc.recordTypesInUse(typesInUse, new JavaProject(Tree.randomId(), "project-" + i, null), sourceSets.get(i));
+        }
+        long retained = usedHeap() - before;
+
+        assertThat(acc.getSymbols().typeCount()).isEqualTo(artifactCount * typesPerArtifact);
+        // a HashMap<String, GroupArtifact> entry alone takes 40 bytes, for each type of each source set
+        assertThat(retained).isLessThan(40L * artifactCount * typesPerArtifact * sourceSetCount / 10);
+        Reference.reachabilityFence(acc);
+    }
+
+    @Test
+    void streamingReleasesFinishedProjectsWithoutChangingResults() {
+        List<JavaProject> projects = IntStream.range(0, 8)
+          .mapToObj(i -> new JavaProject(Tree.randomId(), "project-" + i, null))
+          .toList();
+        List<SourceFile> ordered = generateProjects(projects, 400);
+
+        List<UnusedDependencyReport.Row> expected = new UnusedDependencies()
+          .run(new InMemoryLargeSourceSet(ordered), new InMemoryExecutionContext())
+          .getDataTableRows(UnusedDependencyReport.class.getName());
+        assertThat(expected).isNotEmpty();
+        assertThat(new UnusedDependencies().withStreaming(true)
+          .run(new InMemoryLargeSourceSet(ordered), new InMemoryExecutionContext())
+          .<UnusedDependencyReport.Row>getDataTableRows(UnusedDependencyReport.class.getName()))
+          .containsExactlyInAnyOrderElementsOf(expected);
+
+        UnusedDependencies recipe = new UnusedDependencies().withStreaming(true);
+        UnusedDependencies.Accumulator acc = recipe.getInitialValue(ctx);
+        TreeVisitor<?, ExecutionContext> scanner = recipe.getScanner(acc);
+        ordered.forEach(sourceFile -> scanner.visit(sourceFile, ctx));
+        assertThat(acc.getProjectToEvaluation()).hasSize(projects.size() - 1);
+        assertThat(acc.getSymbols().typeCount()).isPositive();
+        recipe.generate(acc, ctx);
+        assertThat(acc.getProjectToEvaluation()).hasSize(projects.size());
+        assertThat(acc.getSymbols().typeCount()).isZero();
+
+        // a later cycle scanning with the same accumulator skips the evaluated projects
+        List<Throwable> errors = new ArrayList<>();
+        ExecutionContext laterCycle = new InMemoryExecutionContext(errors::add);
+        ordered.forEach(sourceFile -> scanner.visit(sourceFile, laterCycle));
+        recipe.generate(acc, laterCycle);
+        assertThat(errors).isEmpty();
+        assertThat(acc.getSymbols().typeCount()).isZero();
+    }
+
+    @Test
+    void parallelEvaluationMatchesSerialEvaluation() {
+        List<JavaProject> projects = IntStream.range(0, 40)
+          .mapToObj(i -> new JavaProject(Tree.randomId(), "project-" + i, null))
+          .toList();
+        List<SourceFile> sourceFiles = generateProjects(projects, 400);
+
+        List<UnusedDependencyReport.Row> serial = new UnusedDependencies().withParallelism(1)
+          .run(new InMemoryLargeSourceSet(sourceFiles), new InMemoryExecutionContext())
+          .getDataTableRows(UnusedDependencyReport.class.getName());
+        assertThat(serial).isNotEmpty();
+        assertThat(new UnusedDependencies().withParallelism(4)
+          .run(new InMemoryLargeSourceSet(sourceFiles), new InMemoryExecutionContext())
+          .<UnusedDependencyReport.Row>getDataTableRows(UnusedDependencyReport.class.getName()))
+          .containsExactlyElementsOf(serial);
+
+        UnusedDependencies recipe = new UnusedDependencies().withParallelism(4);
+        UnusedDependencies.Accumulator acc = recipe.getInitialValue(ctx);
+        TreeVisitor<?, ExecutionContext> scanner = recipe.getScanner(acc);
+        sourceFiles.forEach(sourceFile -> scanner.visit(sourceFile, ctx));
+        assertThat(acc.getProjectToEvaluation()).isEmpty();
+        recipe.generate(acc, ctx);
+        assertThat(acc.getProjectToEvaluation()).hasSize(projects.size());
+    }
+
+    @Test
+    void skippingFullyUsedProjectsDoesNotChangeResults() {
+        List<JavaProject> projects = IntStream.range(0, 8)
+          .mapToObj(i -> new JavaProject(Tree.randomId(), "project-" + i, null))
+          .toList();
+        // build files first, as they are in a repository
+        List<SourceFile> sourceFiles = new ArrayList<>(generateProjects(projects, 400));
+        sourceFiles.sort(Comparator.comparing(sourceFile -> !(sourceFile instanceof PlainText)));
+
+        List<UnusedDependencyReport.Row> expected = new UnusedDependencies()
+          .run(new InMemoryLargeSourceSet(sourceFiles), new InMemoryExecutionContext())
+          .getDataTableRows(UnusedDependencyReport.class.getName());
+        assertThat(new UnusedDependencies().withSkipFullyUsedProjects(true)
+          .run(new InMemoryLargeSourceSet(sourceFiles), new InMemoryExecutionContext())
+          .<UnusedDependencyReport.Row>getDataTableRows(UnusedDependencyReport.class.getName()))
+          .containsExactlyInAnyOrderElementsOf(expected);
+
+        UnusedDependencies recipe = new UnusedDependencies().withSkipFullyUsedProjects(true);
+        UnusedDependencies.Accumulator acc = recipe.getInitialValue(ctx);
+        TreeVisitor<?, ExecutionContext> scanner = recipe.getScanner(acc);
+        sourceFiles.forEach(sourceFile -> scanner.visit(sourceFile, ctx));
+        // projects 3 and 7 use all of their dependencies, the others do not use commons-lang3
+        assertThat(projects).filteredOn(acc::isFullyUsed).containsExactly(projects.get(3), projects.get(7));
+    }
+
+    @Test
+    void keepsCachedTypesOfSkippedSourceFiles(@TempDir Path cacheDirectory) throws Exception {
+        List<JavaProject> projects = IntStream.range(0, 8)
+          .mapToObj(i -> new JavaProject(Tree.randomId(), "project-" + i, null))
+          .toList();
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        for (SourceFile sourceFile : generateProjects(projects, 400)) {
+            // a source path of its own, as the cache is keyed on it
+            sourceFiles.add(sourceFile instanceof JavaSourceFile ?
+              sourceFile.<SourceFile>withSourcePath(Path.of("src", sourceFiles.size() + ".java"))
+                .withChecksum(new Checksum("MD5", md5.digest(sourceFile.printAllAsBytes()))) : sourceFile);
+        }
+        sourceFiles.sort(Comparator.comparing(sourceFile -> !(sourceFile instanceof PlainText)));
+        long compilationUnits = sourceFiles.stream().filter(JavaSourceFile.class::isInstance).count();
+        UnusedDependencies recipe = new UnusedDependencies().withScanCacheDirectory(cacheDirectory.toString());
+        UnusedDependencies skipping = recipe.withSkipFullyUsedProjects(true);
+
+        UnusedDependencies.Accumulator firstRun = recipe.getInitialValue(ctx);
+        sourceFiles.forEach(sourceFile -> recipe.getScanner(firstRun).visit(sourceFile, ctx));
+        recipe.generate(firstRun, ctx);
+        assertThat(firstRun.getScanCache().getMisses()).isEqualTo(compilationUnits);
+
+        UnusedDependencies.Accumulator secondRun = skipping.getInitialValue(ctx);
+        sourceFiles.forEach(sourceFile -> skipping.getScanner(secondRun).visit(sourceFile, ctx));
+        skipping.generate(secondRun, ctx);
+        assertThat(secondRun.getScanCache().getHits()).isLessThan((int) compilationUnits);
+        assertThat(secondRun.getScanCache().getMisses()).isZero();
+
+        UnusedDependencies.Accumulator thirdRun = recipe.getInitialValue(ctx);
+        sourceFiles.forEach(sourceFile -> recipe.getScanner(thirdRun).visit(sourceFile, ctx));
+        assertThat(thirdRun.getScanCache().getHits()).isEqualTo(compilationUnits);
+        assertThat(thirdRun.getScanCache().getMisses()).isZero();
+    }
+
+    /**
+     * The compilation units of each project followed by its build file.
+     */
+    private List<SourceFile> generateProjects(List<JavaProject> projects, int compilationUnitCount) {
+        List<JavaSourceFile> compilationUnits = generateCompilationUnits(projects, compilationUnitCount);
+        List<SourceFile> sourceFiles = new ArrayList<>();
+        for (JavaProject project : projects) {
+            compilationUnits.stream()
+              .filter(cu -> cu.getMarkers().findFirst(JavaProject.class).orElseThrow().equals(project))
+              .map(cu -> cu.<SourceFile>withId(Tree.randomId()))
+              .forEach(sourceFiles::add);
+            sourceFiles.add(buildGradle(project));
+        }
+        return sourceFiles;
+    }
+
+    private static SourceFile buildGradle(JavaProject project) {
+        List<Dependency> requested = GAS.stream()
+          .map(ga -> Dependency.builder().gav(new GroupArtifactVersion(ga.getGroupId(), ga.getArtifactId(), "1.0")).build())
+          .toList();
+        GradleDependencyConfiguration implementation = new GradleDependencyConfiguration(
+          "implementation", null, true, false, false, List.of(), requested, List.of(), null, null);
+        GradleProject gradleProject = GradleProject.builder()
+          .id(Tree.randomId())
+          .name(project.getProjectName())
+          .path(":" + project.getProjectName())
+          .plugins(List.of())
+          .mavenRepositories(List.of())
+          .mavenPluginRepositories(List.of())
+          .nameToConfiguration(Map.of("implementation", implementation))
+          .build();
+        return PlainText.builder()
+          .sourcePath(Path.of(project.getProjectName(), "build.gradle"))
+          .text("")
+          .markers(Markers.build(List.of(project, gradleProject)))
+          .build();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * The checksums a parser records when asked to, without which source files are not cached.
+     */
+    private static List<JavaSourceFile> withChecksums(List<JavaSourceFile> compilationUnits) throws NoSuchAlgorithmException {
+        MessageDigest md5 = MessageDigest.getInstance("MD5");
+        return compilationUnits.stream()
+          .map(cu -> cu.<JavaSourceFile>withChecksum(new Checksum("MD5", md5.digest(cu.printAllAsBytes()))))
+          .toList();
+    }
+
+    /**
+     * Project {@code i} only gets files using the first {@code i % 4} of {@link #GAS}.
+     */
+    private List<JavaSourceFile> generateCompilationUnits(List<JavaProject> projects, int count) {
+        List<JavaSourceFile> templates = JavaParser.fromJavaVersion()
+          .classpath(ARTIFACT_NAMES)
+          .build()
+          .parse(ctx,
+            //language=java
+            """
+              public class Plain {
+                  String s;
+              }
+              """,
+            //language=java
+            """
+              import com.google.common.collect.ImmutableList;
+              public class UsesGuava {
+                  ImmutableList<String> list;
+              }
+              """,
+            //language=java
+            """
+              import org.slf4j.Logger;
+              public class UsesSlf4j {
+                  Logger logger;
+              }
+              """,
+            //language=java
+            """
+              import org.apache.commons.lang3.StringUtils;
+              public class UsesCommonsLang {
+                  boolean blank = StringUtils.isBlank("");
+              }
+              """
+          )
+          .map(JavaSourceFile.class::cast)
+          .toList();
+        List<JavaSourceFile> compilationUnits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int p = i % projects.size();
+            JavaSourceFile template = templates.get((i / projects.size()) % (1 + p % 4));
+            compilationUnits.add(template.withMarkers(template.getMarkers()
+              .add(projects.get(p))
+              .add(jssWithDependencies)));
+        }
+        return compilationUnits;
+    }
+}
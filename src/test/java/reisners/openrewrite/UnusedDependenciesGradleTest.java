@@ -16,14 +16,22 @@
 package reisners.openrewrite;
 
 import org.junit.jupiter.api.Test;
+import org.openrewrite.Tree;
+import org.openrewrite.gradle.marker.GradleDependencyConfiguration;
+import org.openrewrite.gradle.marker.GradleProject;
 import org.openrewrite.java.Java17Parser;
 import org.openrewrite.java.JavaParser;
 import org.openrewrite.java.marker.JavaSourceSet;
 import org.openrewrite.kotlin.KotlinParser;
+import org.openrewrite.maven.tree.Dependency;
+import org.openrewrite.maven.tree.GroupArtifactVersion;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
 import reisners.openrewrite.table.UnusedDependencyReport;
 
+import java.util.List;
+import java.util.Map;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -57,8 +65,8 @@ class UnusedDependenciesGradleTest implements RewriteTest {
           spec -> {
               spec.beforeRecipe(withToolingApi());
               spec.dataTable(UnusedDependencyReport.Row.class, rows -> assertThat(rows).containsExactly(
-                new UnusedDependencyReport.Row("project", GRADLE, "com.google.guava", "guava"),
-                new UnusedDependencyReport.Row("project", GRADLE, "org.slf4j", "slf4j-api")
+                new UnusedDependencyReport.Row("project", GRADLE, "com.google.guava", "guava", "implementation"),
+                new UnusedDependencyReport.Row("project", GRADLE, "org.slf4j", "slf4j-api", "implementation")
               ));
           },
           mavenProject("project",
@@ -139,4 +147,67 @@ class UnusedDependenciesGradleTest implements RewriteTest {
         assertThat(error.getMessage()).contains("No data table found");
     }
 
+    @Test
+    void shouldRemoveUnusedGradleDependenciesExceptKeptOnes() {
+        GradleDependencyConfiguration implementation = new GradleDependencyConfiguration(
+          "implementation", null, true, false, false, List.of(), List.of(
+            Dependency.builder().gav(new GroupArtifactVersion("com.google.guava", "guava", "33.3.1-jre")).build(),
+            Dependency.builder().gav(new GroupArtifactVersion("org.slf4j", "slf4j-api", "2.0.16")).build(),
+            Dependency.builder().gav(new GroupArtifactVersion("org.apache.commons", "commons-lang3", "3.17.0")).build()
+          ), List.of(), null, null);
+        GradleProject gradleProject = GradleProject.builder()
+          .id(Tree.randomId())
+          .name("project")
+          .path(":")
+          .plugins(List.of())
+          .mavenRepositories(List.of())
+          .mavenPluginRepositories(List.of())
+          .nameToConfiguration(Map.of("implementation", implementation))
+          .build();
+        rewriteRun(
+          spec -> spec
+            .recipe(new UnusedDependencies().withRemoveUnused(true).withKeepDependencies(List.of("org.slf4j:*")))
+            .dataTable(UnusedDependencyReport.Row.class, rows -> assertThat(rows).containsExactly(
+              new UnusedDependencyReport.Row("project", GRADLE, "org.apache.commons", "commons-lang3", "implementation")
+            )),
+          mavenProject("project",
+            //language=groovy
+            buildGradle("""
+              plugins {
+                  id 'java'
+              }
+              dependencies {
+                  implementation 'com.google.guava:guava:33.3.1-jre'
+                  implementation 'org.slf4j:slf4j-api:2.0.16'
+                  implementation 'org.apache.commons:commons-lang3:3.17.0'
+              }
+              """, """
+              plugins {
+                  id 'java'
+              }
+              dependencies {
+                  implementation 'com.google.guava:guava:33.3.1-jre'
+                  implementation 'org.slf4j:slf4j-api:2.0.16'
+              }
+              """,
+              spec -> spec.markers(gradleProject)
+                .afterRecipe(cu -> assertThat(cu.getMarkers().findFirst(GradleProject.class).orElseThrow()
+                  .getConfiguration("implementation").getRequested()).hasSize(2))
+            ),
+            srcMainJava(
+              java(
+                //language=java
+                """
+                  import com.google.common.collect.Collections2;
+                  
+                  public class A {
+                      private Collection<List<String>> s = Collections2.permutations(java.util.Arrays.asList("a", "b", "c"));
+                  }
+                  """.stripIndent(),
+                spec -> spec.markers(jssWithDependencies)
+              )
+            )
+          )
+        );
+    }
 }
@@ -15,15 +15,28 @@
  */
 package reisners.openrewrite;
 
+import reisners.openrewrite.export.ReportFileReader;
+import reisners.openrewrite.export.ReportFileWriter;
+import reisners.openrewrite.table.UnusedDependenciesMetrics;
 import reisners.openrewrite.table.UnusedDependencyReport;
+import reisners.openrewrite.table.UsedUndeclaredDependencyReport;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.openrewrite.java.Java17Parser;
 import org.openrewrite.java.JavaParser;
 import org.openrewrite.java.marker.JavaSourceSet;
 import org.openrewrite.kotlin.KotlinParser;
+import org.openrewrite.maven.tree.MavenResolutionResult;
+import org.openrewrite.maven.tree.ResolvedDependency;
+import org.openrewrite.maven.tree.Scope;
 import org.openrewrite.test.RecipeSpec;
 import org.openrewrite.test.RewriteTest;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
 import static reisners.openrewrite.table.UnusedDependencyReport.DependencyType.MAVEN;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
@@ -54,7 +67,7 @@ class UnusedDependenciesMavenTest implements RewriteTest {
     void shouldFindUnusedMavenDependencies() {
         rewriteRun(
           spec -> spec.dataTable(UnusedDependencyReport.Row.class, rows -> assertThat(rows).containsExactly(
-            new UnusedDependencyReport.Row("project", MAVEN, "org.apache.commons", "commons-lang3")
+            new UnusedDependencyReport.Row("project", MAVEN, "org.apache.commons", "commons-lang3", "compile")
           )),
           mavenProject("project",
             //language=XML
@@ -109,6 +122,67 @@ class UnusedDependenciesMavenTest implements RewriteTest {
         );
     }
 
+    @Test
+    void shouldExportUnusedMavenDependencies(@TempDir Path tmp) throws IOException {
+        Path exportFile = tmp.resolve("report.udr");
+        rewriteRun(
+          spec -> spec.recipe(new UnusedDependencies().withExportFile(exportFile.toString())),
+          mavenProject("project",
+            //language=XML
+            pomXml("""
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>app</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>com.google.guava</groupId>
+                            <artifactId>guava</artifactId>
+                            <version>33.3.1-jre</version>
+                        </dependency>
+                        <dependency>
+                            <groupId>org.apache.commons</groupId>
+                            <artifactId>commons-lang3</artifactId>
+                            <version>3.17.0</version>
+                        </dependency>
+                    </dependencies>
+                </project>
+              """)
+          )
+        );
+        List<UnusedDependencyReport.Row> rows = new ArrayList<>();
+        ReportFileReader.read(exportFile, rows::add);
+        assertThat(rows).containsExactly(
+          new UnusedDependencyReport.Row("project", MAVEN, "com.google.guava", "guava", "compile"),
+          new UnusedDependencyReport.Row("project", MAVEN, "org.apache.commons", "commons-lang3", "compile")
+        );
+    }
+
+    @Test
+    void shouldReplaceExportFileWithEmptyReportWhenNothingIsUnused(@TempDir Path tmp) throws IOException {
+        Path exportFile = tmp.resolve("report.udr");
+        new ReportFileWriter(exportFile).append(List.of(
+          new UnusedDependencyReport.Row("project", MAVEN, "com.google.guava", "guava", "compile")));
+        rewriteRun(
+          spec -> spec.recipe(new UnusedDependencies().withExportFile(exportFile.toString())),
+          mavenProject("project",
+            //language=XML
+            pomXml("""
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>app</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                </project>
+              """)
+          )
+        );
+        List<UnusedDependencyReport.Row> rows = new ArrayList<>();
+        ReportFileReader.read(exportFile, rows::add);
+        assertThat(rows).isEmpty();
+    }
+
     @Test
     void shouldNotFindUsedMavenDependencies() {
         AssertionError error = assertThrows(
@@ -165,4 +239,412 @@ class UnusedDependenciesMavenTest implements RewriteTest {
         );
         assertThat(error.getMessage()).contains("No data table found");
     }
+
+    @Test
+    void shouldFindUsedUndeclaredTransitiveMavenDependencies() {
+        JavaSourceSet jssWithTransitiveDependency = JavaSourceSet.build("main",
+          JavaParser.dependenciesFromClasspath("commons-text", "commons-lang3"));
+        rewriteRun(
+          spec -> spec
+            .dataTable(UnusedDependencyReport.Row.class, rows -> assertThat(rows).containsExactly(
+              new UnusedDependencyReport.Row("project", MAVEN, "org.apache.commons", "commons-text", "compile")
+            ))
+            .dataTable(UsedUndeclaredDependencyReport.Row.class, rows -> assertThat(rows).containsExactly(
+              new UsedUndeclaredDependencyReport.Row("project", MAVEN, "org.apache.commons", "commons-lang3",
+                "org.apache.commons:commons-text")
+            )),
+          mavenProject("project",
+            //language=XML
+            pomXml("""
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>app</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>org.apache.commons</groupId>
+                            <artifactId>commons-text</artifactId>
+                            <version>1.13.0</version>
+                        </dependency>
+                    </dependencies>
+                </project>
+              """),
+            srcMainJava(
+              java(
+                //language=java
+                """
+                  import org.apache.commons.lang3.StringUtils;
+                  
+                  public class A {
+                      private boolean blank = StringUtils.isBlank("a");
+                  }
+                  """.stripIndent(),
+                spec -> spec.markers(jssWithTransitiveDependency)
+              )
+            )
+          )
+        );
+    }
+
+    @Test
+    void shouldNotRemoveDeclaredDependenciesProvidingUsedTransitiveOnes() {
+        JavaSourceSet jssWithTransitiveDependency = JavaSourceSet.build("main",
+          JavaParser.dependenciesFromClasspath("commons-text", "commons-lang3"));
+        rewriteRun(
+          spec -> spec
+            .recipe(new UnusedDependencies().withRemoveUnused(true))
+            .dataTable(UnusedDependencyReport.Row.class, rows -> assertThat(rows).containsExactly(
+              new UnusedDependencyReport.Row("project", MAVEN, "org.apache.commons", "commons-text", "compile")
+            )),
+          mavenProject("project",
+            //language=XML
+            pomXml("""
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>app</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>org.apache.commons</groupId>
+                            <artifactId>commons-text</artifactId>
+                            <version>1.13.0</version>
+                        </dependency>
+                    </dependencies>
+                </project>
+              """),
+            srcMainJava(
+              java(
+                //language=java
+                """
+                  import org.apache.commons.lang3.StringUtils;
+                  
+                  public class A {
+                      private boolean blank = StringUtils.isBlank("a");
+                  }
+                  """.stripIndent(),
+                spec -> spec.markers(jssWithTransitiveDependency)
+              )
+            )
+          )
+        );
+    }
+
+    @Test
+    void shouldFindCompileScopedMavenDependenciesOnlyUsedByTests() {
+        JavaSourceSet testJssWithDependencies = JavaSourceSet.build("test", JavaParser.dependenciesFromClasspath(artifactNames));
+        rewriteRun(
+          spec -> spec.dataTable(UnusedDependencyReport.Row.class, rows -> assertThat(rows).containsExactly(
+            new UnusedDependencyReport.Row("project", MAVEN, "com.google.guava", "guava", "compile"),
+            new UnusedDependencyReport.Row("project", MAVEN, "org.apache.commons", "commons-lang3", "test")
+          )),
+          mavenProject("project",
+            //language=XML
+            pomXml("""
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>app</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>com.google.guava</groupId>
+                            <artifactId>guava</artifactId>
+                            <version>33.3.1-jre</version>
+                        </dependency>
+                        <dependency>
+                            <groupId>org.slf4j</groupId>
+                            <artifactId>slf4j-api</artifactId>
+                            <version>2.0.16</version>
+                            <scope>test</scope>
+                        </dependency>
+                        <dependency>
+                            <groupId>org.apache.commons</groupId>
+                            <artifactId>commons-lang3</artifactId>
+                            <version>3.17.0</version>
+                            <scope>test</scope>
+                        </dependency>
+                    </dependencies>
+                </project>
+              """),
+            srcMainJava(
+              java(
+                //language=java
+                """
+                  public class A {
+                      private String s;
+                  }
+                  """.stripIndent(),
+                spec -> spec.markers(jssWithDependencies)
+              )
+            ),
+            srcTestJava(
+              java(
+                //language=java
+                """
+                  import com.google.common.collect.Collections2;
+                  import org.slf4j.Logger;
+                  
+                  public class ATest {
+                      private Logger logger;
+                      private Collection<List<String>> s = Collections2.permutations(java.util.Arrays.asList("a", "b", "c"));
+                  }
+                  """.stripIndent(),
+                spec -> spec.markers(testJssWithDependencies)
+              )
+            )
+          )
+        );
+    }
+
+    @Test
+    void shouldCollectMetricsWhenRequested() {
+        rewriteRun(
+          spec -> spec
+            .recipe(new UnusedDependencies().withCollectMetrics(true))
+            .dataTable(UnusedDependenciesMetrics.Row.class, rows -> {
+                assertThat(rows).hasSize(1);
+                UnusedDependenciesMetrics.Row row = rows.get(0);
+                assertThat(row.getProject()).isEqualTo("project");
+                assertThat(row.getSourceFiles()).isEqualTo(1);
+                assertThat(row.getReferencedTypes()).isPositive();
+                assertThat(row.getScanTime()).isGreaterThanOrEqualTo(row.getTypesInUseTime() + row.getClasspathTime());
+                assertThat(row.getDependencies()).isGreaterThan(1);
+                assertThat(row.getAccumulatorRetainedBytes()).isPositive();
+            }),
+          mavenProject("project",
+            //language=XML
+            pomXml("""
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>app</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>com.google.guava</groupId>
+                            <artifactId>guava</artifactId>
+                            <version>33.3.1-jre</version>
+                        </dependency>
+                    </dependencies>
+                </project>
+              """),
+            srcMainJava(
+              java(
+                //language=java
+                """
+                  import com.google.common.collect.Collections2;
+                  
+                  public class A {
+                      private Collection<List<String>> s = Collections2.permutations(java.util.Arrays.asList("a", "b", "c"));
+                  }
+                  """.stripIndent(),
+                spec -> spec.markers(jssWithDependencies)
+              )
+            )
+          )
+        );
+    }
+
+    @Test
+    void shouldRemoveUnusedMavenDependenciesExceptKeptOnes() {
+        rewriteRun(
+          spec -> spec
+            .recipe(new UnusedDependencies().withRemoveUnused(true).withKeepDependencies(List.of("org.slf4j:*")))
+            .dataTable(UnusedDependencyReport.Row.class, rows -> assertThat(rows).containsExactly(
+              new UnusedDependencyReport.Row("project", MAVEN, "org.apache.commons", "commons-lang3", "compile")
+            )),
+          mavenProject("project",
+            //language=XML
+            pomXml("""
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>app</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>com.google.guava</groupId>
+                            <artifactId>guava</artifactId>
+                            <version>33.3.1-jre</version>
+                        </dependency>
+                        <dependency>
+                            <groupId>org.slf4j</groupId>
+                            <artifactId>slf4j-api</artifactId>
+                            <version>2.0.16</version>
+                        </dependency>
+                        <dependency>
+                            <groupId>org.apache.commons</groupId>
+                            <artifactId>commons-lang3</artifactId>
+                            <version>3.17.0</version>
+                        </dependency>
+                    </dependencies>
+                </project>
+              """, """
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>app</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>com.google.guava</groupId>
+                            <artifactId>guava</artifactId>
+                            <version>33.3.1-jre</version>
+                        </dependency>
+                        <dependency>
+                            <groupId>org.slf4j</groupId>
+                            <artifactId>slf4j-api</artifactId>
+                            <version>2.0.16</version>
+                        </dependency>
+                    </dependencies>
+                </project>
+              """),
+            srcMainJava(
+              java(
+                //language=java
+                """
+                  import com.google.common.collect.Collections2;
+                  
+                  public class A {
+                      private Collection<List<String>> s = Collections2.permutations(java.util.Arrays.asList("a", "b", "c"));
+                  }
+                  """.stripIndent(),
+                spec -> spec.markers(jssWithDependencies)
+              )
+            )
+          )
+        );
+    }
+
+    @Test
+    void shouldRemoveUnusedMavenDependenciesWhenStreaming() {
+        rewriteRun(
+          spec -> spec
+            .recipe(new UnusedDependencies().withStreaming(true).withRemoveUnused(true))
+            .dataTable(UnusedDependencyReport.Row.class, rows -> assertThat(rows).containsExactly(
+              new UnusedDependencyReport.Row("a", MAVEN, "org.apache.commons", "commons-lang3", "compile")
+            )),
+          mavenProject("a",
+            //language=XML
+            pomXml("""
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>a</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>com.google.guava</groupId>
+                            <artifactId>guava</artifactId>
+                            <version>33.3.1-jre</version>
+                        </dependency>
+                        <dependency>
+                            <groupId>org.apache.commons</groupId>
+                            <artifactId>commons-lang3</artifactId>
+                            <version>3.17.0</version>
+                        </dependency>
+                    </dependencies>
+                </project>
+              """, """
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>a</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>com.google.guava</groupId>
+                            <artifactId>guava</artifactId>
+                            <version>33.3.1-jre</version>
+                        </dependency>
+                    </dependencies>
+                </project>
+              """),
+            srcMainJava(
+              java(
+                //language=java
+                """
+                  import com.google.common.collect.Collections2;
+                  
+                  public class A {
+                      private Collection<List<String>> s = Collections2.permutations(java.util.Arrays.asList("a", "b", "c"));
+                  }
+                  """.stripIndent(),
+                spec -> spec.markers(jssWithDependencies)
+              )
+            )
+          )
+        );
+    }
+
+    @Test
+    void shouldUpdateMavenModelAfterRemovingAllUnusedDependencies() {
+        rewriteRun(
+          spec -> spec.recipe(new UnusedDependencies().withRemoveUnused(true)),
+          mavenProject("project",
+            //language=XML
+            pomXml("""
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>app</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>com.google.guava</groupId>
+                            <artifactId>guava</artifactId>
+                            <version>33.3.1-jre</version>
+                        </dependency>
+                        <dependency>
+                            <groupId>org.slf4j</groupId>
+                            <artifactId>slf4j-api</artifactId>
+                            <version>2.0.16</version>
+                        </dependency>
+                        <dependency>
+                            <groupId>org.apache.commons</groupId>
+                            <artifactId>commons-lang3</artifactId>
+                            <version>3.17.0</version>
+                        </dependency>
+                    </dependencies>
+                </project>
+              """, """
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                    <modelVersion>4.0.0</modelVersion>
+                    <groupId>com.yourorg</groupId>
+                    <artifactId>app</artifactId>
+                    <version>1.0.1-SNAPSHOT</version>
+                    <dependencies>
+                        <dependency>
+                            <groupId>org.slf4j</groupId>
+                            <artifactId>slf4j-api</artifactId>
+                            <version>2.0.16</version>
+                        </dependency>
+                    </dependencies>
+                </project>
+              """,
+              spec -> spec.afterRecipe(pom -> {
+                  MavenResolutionResult mrr = pom.getMarkers().findFirst(MavenResolutionResult.class).orElseThrow();
+                  assertThat(mrr.getDependencies().get(Scope.Compile))
+                    .filteredOn(dependency -> dependency.getDepth() == 0)
+                    .extracting(ResolvedDependency::getArtifactId)
+                    .containsExactly("slf4j-api");
+              })),
+            srcMainJava(
+              java(
+                //language=java
+                """
+                  import org.slf4j.Logger;
+                  
+                  public class A {
+                      private Logger logger;
+                  }
+                  """.stripIndent(),
+                spec -> spec.markers(jssWithDependencies)
+              )
+            )
+          )
+        );
+    }
 }
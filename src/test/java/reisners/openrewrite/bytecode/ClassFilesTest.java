@@ -0,0 +1,105 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.bytecode;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.InMemoryExecutionContext;
+import org.openrewrite.Tree;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.marker.JavaProject;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.java.tree.JavaSourceFile;
+import org.openrewrite.maven.tree.GroupArtifact;
+import reisners.openrewrite.UnusedDependencies;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassFilesTest {
+
+    // only referenced by name, as for reflection
+    private static final String REFLECTIVELY_USED = "com.google.common.collect.ImmutableList";
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void findsTypesReferencedInConstantPool() throws IOException {
+        Set<String> types = new HashSet<>();
+        ClassFiles.referencedTypes(ByteBuffer.wrap(ownClassFile()), types::add);
+
+        assertThat(types).contains(
+          // annotation only
+          "org.junit.jupiter.api.Test",
+          // in a field descriptor
+          "java.nio.file.Path",
+          // in a generic signature
+          "java.util.Map",
+          // a class name as a string constant
+          REFLECTIVELY_USED,
+          ClassFiles.class.getName()
+        );
+        assertThat(types).doesNotContain("findsTypesReferencedInConstantPool", "tmp");
+    }
+
+    @Test
+    void recordsTypesReferencedByCompiledClassesOfSourceSet() throws IOException {
+        Path classes = tmp.resolve("project/target/classes/reisners/openrewrite/bytecode");
+        Files.createDirectories(classes);
+        Files.write(classes.resolve("ClassFilesTest.class"), ownClassFile());
+        JavaProject project = new JavaProject(Tree.randomId(), "project", null);
+        JavaSourceSet main = JavaSourceSet.build("main", JavaParser.dependenciesFromClasspath("guava"));
+        JavaSourceSet test = JavaSourceSet.build("test", JavaParser.dependenciesFromClasspath("guava"));
+
+        UnusedDependencies.Accumulator acc = new UnusedDependencies.Accumulator();
+        assertThat(acc.recordCompiledClasses(sourceFile("project/src/test/java/A.java", project, test), tmp,
+          new InMemoryExecutionContext())).isFalse();
+        assertThat(acc.isInUse(project, new GroupArtifact("com.google.guava", "guava"))).isFalse();
+        assertThat(acc.recordCompiledClasses(sourceFile("project/src/main/java/A.java", project, main), tmp,
+          new InMemoryExecutionContext())).isTrue();
+        assertThat(acc.isInUse(project, "main", new GroupArtifact("com.google.guava", "guava"))).isTrue();
+    }
+
+    private static JavaSourceFile sourceFile(String sourcePath, JavaProject project, JavaSourceSet sourceSet) {
+        JavaSourceFile cu = (JavaSourceFile) JavaParser.fromJavaVersion().build()
+          .parse("class A {}")
+          .findFirst()
+          .orElseThrow();
+        return cu.<JavaSourceFile>withSourcePath(Paths.get(sourcePath))
+          .withMarkers(cu.getMarkers().add(project).add(sourceSet));
+    }
+
+    private byte[] ownClassFile() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(getClass().getSimpleName() + ".class")) {
+            return in.readAllBytes();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    private Map<String, Path> unusedGenericSignature() {
+        return Map.of();
+    }
+}
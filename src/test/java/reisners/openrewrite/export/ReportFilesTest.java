@@ -0,0 +1,102 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.export;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reisners.openrewrite.table.UnusedDependencyReport;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static reisners.openrewrite.table.UnusedDependencyReport.DependencyType.GRADLE;
+import static reisners.openrewrite.table.UnusedDependencyReport.DependencyType.MAVEN;
+
+class ReportFilesTest {
+
+    private static final UnusedDependencyReport.Row GUAVA = new UnusedDependencyReport.Row("a", MAVEN, "com.google.guava", "guava", "compile");
+    private static final UnusedDependencyReport.Row LANG = new UnusedDependencyReport.Row("a", MAVEN, "org.apache.commons", "commons-lang3", "test");
+    private static final UnusedDependencyReport.Row SLF4J = new UnusedDependencyReport.Row("b", GRADLE, "org.slf4j", "slf4j-api", "implementation");
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void readsBlocksAsAppended() throws IOException {
+        Path file = tmp.resolve("report.udr");
+        ReportFileWriter writer = new ReportFileWriter(file);
+        writer.append(Arrays.asList(GUAVA, LANG));
+        long firstBlockEnd = Files.size(file);
+        writer.append(List.of(new UnusedDependencyReport.Row("a", MAVEN, "com.google.guava", "guava", "test")));
+        // all strings of the second block are in the dictionary already
+        assertThat(Files.size(file) - firstBlockEnd).isEqualTo(1 + 1 + 5);
+
+        try (ReportFileReader reader = new ReportFileReader(file)) {
+            assertThat(reader.readBlock()).containsExactly(GUAVA, LANG);
+            assertThat(reader.readBlock()).containsExactly(new UnusedDependencyReport.Row("a", MAVEN, "com.google.guava", "guava", "test"));
+            assertThat(reader.readBlock()).isNull();
+        }
+
+        Files.write(file, Arrays.copyOf(Files.readAllBytes(file), (int) firstBlockEnd - 1));
+        assertThrows(EOFException.class, () -> ReportFileReader.read(file, row -> {
+        }));
+    }
+
+    @Test
+    void replacesFileOfEarlierRunWithEmptyReportWhenCreated() throws IOException {
+        Path file = tmp.resolve("report.udr");
+        new ReportFileWriter(file).append(List.of(GUAVA));
+
+        ReportFileWriter writer = new ReportFileWriter(file);
+        writer.create();
+        List<UnusedDependencyReport.Row> rows = new ArrayList<>();
+        ReportFileReader.read(file, rows::add);
+        assertThat(rows).isEmpty();
+
+        writer.create();
+        writer.append(List.of(LANG));
+        ReportFileReader.read(file, rows::add);
+        assertThat(rows).containsExactly(LANG);
+    }
+
+    @Test
+    void mergesFiles() throws IOException {
+        Path first = tmp.resolve("first.udr");
+        new ReportFileWriter(first).append(Arrays.asList(GUAVA, LANG));
+        Path second = tmp.resolve("second.udr");
+        ReportFileWriter secondWriter = new ReportFileWriter(second);
+        secondWriter.append(List.of(SLF4J));
+        secondWriter.append(List.of(GUAVA));
+
+        Path merged = tmp.resolve("merged.udr");
+        assertThat(ReportFiles.merge(Arrays.asList(first, second), merged)).isEqualTo(4);
+        List<UnusedDependencyReport.Row> rows = new ArrayList<>();
+        ReportFileReader.read(merged, rows::add);
+        assertThat(rows).containsExactly(GUAVA, LANG, SLF4J, GUAVA);
+
+        assertThat(ReportFiles.merge(List.of(), merged)).isZero();
+        rows.clear();
+        ReportFileReader.read(merged, rows::add);
+        assertThat(rows).isEmpty();
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.index;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openrewrite.Tree;
+import org.openrewrite.java.marker.JavaProject;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.maven.tree.GroupArtifact;
+import reisners.openrewrite.ArtifactTypes;
+import reisners.openrewrite.UnusedDependencies;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassIndexTest {
+
+    private static final GroupArtifact FOO = new GroupArtifact("org.example", "foo");
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void indexesClassesFromJarAndReusesIndexWithoutJar() throws IOException {
+        Path repository = tmp.resolve("repository");
+        Path jar = writeJar(repository.resolve("org/example/foo/1.0/foo-1.0.jar"),
+          "META-INF/MANIFEST.MF",
+          "module-info.class",
+          "org/example/",
+          "org/example/package-info.class",
+          "org/example/Foo.class",
+          "org/example/Foo$Bar.class",
+          "org/example/readme.txt",
+          "META-INF/versions/11/org/example/Baz.class");
+
+        ArtifactIndex index = new ClassIndex(tmp.resolve("index"), List.of(repository), e -> {}).get("org.example:foo:1.0");
+        assertThat(index).containsExactly("org.example.Baz", "org.example.Foo", "org.example.Foo$Bar");
+        assertThat(index.contains("org.example.Foo$Bar")).isTrue();
+        assertThat(index.contains("org.example.Fo")).isFalse();
+        assertThat(index.contains("org.example.Foo$Baz")).isFalse();
+
+        Files.delete(jar);
+        assertThat(new ClassIndex(tmp.resolve("index"), List.of(repository), e -> {}).get("org.example:foo:1.0"))
+          .containsExactly("org.example.Baz", "org.example.Foo", "org.example.Foo$Bar");
+        assertThat(new ClassIndex(tmp.resolve("index"), List.of(repository), e -> {}).get("org.example:foo:2.0")).isNull();
+    }
+
+    @Test
+    void neverKeepsIndexOfSnapshotsAndReportsUnreadableJars() throws IOException {
+        Path repository = tmp.resolve("repository");
+        Path jar = writeJar(repository.resolve("org/example/foo/1.0-SNAPSHOT/foo-1.0-SNAPSHOT.jar"), "org/example/Foo.class");
+        assertThat(new ClassIndex(tmp.resolve("index"), List.of(repository), e -> {}).get("org.example:foo:1.0-SNAPSHOT"))
+          .containsExactly("org.example.Foo");
+        assertThat(tmp.resolve("index/org.example/foo/1.0-SNAPSHOT.idx")).doesNotExist();
+
+        writeJar(jar, "org/example/Foo.class", "org/example/Bar.class");
+        assertThat(new ClassIndex(tmp.resolve("index"), List.of(repository), e -> {}).get("org.example:foo:1.0-SNAPSHOT"))
+          .containsExactly("org.example.Bar", "org.example.Foo");
+
+        Files.write(repository.resolve("org/example/foo/1.0-SNAPSHOT/foo-1.0-SNAPSHOT.jar"), new byte[]{1, 2, 3});
+        List<Throwable> errors = new ArrayList<>();
+        assertThat(new ClassIndex(tmp.resolve("index"), List.of(repository), errors::add).get("org.example:foo:1.0-SNAPSHOT")).isNull();
+        assertThat(errors).hasSize(1);
+    }
+
+    @Test
+    void resolvesTypesAgainstIndexWithoutCopyingItsNames() throws IOException {
+        ArtifactIndex index = ArtifactIndex.of(List.of("org.example.Foo", "org.example.b.Bar", "org.example.Zoo", "Default", "org.exämple.Foo"));
+        assertThat(index.packages()).containsExactlyInAnyOrder("", "org.example", "org.example.b", "org.exämple");
+        assertThat(index.contains("org.exämple.Foo")).isTrue();
+        assertThat(index.contains("org.exämple.Fo")).isFalse();
+        assertThat(index.contains("org.example.b.Bar")).isTrue();
+
+        ArtifactTypes types = ArtifactTypes.of(List.of("org.example.Foo", "org.example.c.Baz"), index);
+        assertThat(types.size()).isEqualTo(6);
+        assertThat(types.contains("org.example.b.Bar")).isTrue();
+        assertThat(types.contains("org.example.c.Baz")).isTrue();
+        assertThat(types.contains("org.example.Qux")).isFalse();
+    }
+
+    @Test
+    void attributesTypesMissingFromTypeTable() throws IOException {
+        Path repository = tmp.resolve("repository");
+        writeJar(repository.resolve("org/example/foo/1.0/foo-1.0.jar"), "org/example/Foo.class");
+        JavaSourceSet sourceSet = new JavaSourceSet(Tree.randomId(), "main", List.of(), Map.of("org.example:foo:1.0", List.of()));
+        JavaProject project = new JavaProject(Tree.randomId(), "project", null);
+
+        UnusedDependencies.Accumulator withoutIndex = new UnusedDependencies.Accumulator();
+        withoutIndex.recordReferencedTypes(List.of("org.example.Foo"), project, sourceSet);
+        assertThat(withoutIndex.isInUse(project, FOO)).isFalse();
+
+        UnusedDependencies.Accumulator withIndex = new UnusedDependencies.Accumulator(null,
+          new ClassIndex(tmp.resolve("index"), List.of(repository), e -> {}));
+        withIndex.recordReferencedTypes(List.of("org.example.Foo"), project, sourceSet);
+        assertThat(withIndex.isInUse(project, FOO)).isTrue();
+    }
+
+    private static Path writeJar(Path jar, String... entryNames) throws IOException {
+        Files.createDirectories(jar.getParent());
+        try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+            for (String entryName : entryNames) {
+                zip.putNextEntry(new ZipEntry(entryName));
+                zip.write(new byte[]{(byte) 0xCA, (byte) 0xFE});
+                zip.closeEntry();
+            }
+        }
+        return jar;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2024 the original author or authors.
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * https://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package reisners.openrewrite.usage;
+
+import org.junit.jupiter.api.Test;
+import org.openrewrite.SourceFile;
+import org.openrewrite.Tree;
+import org.openrewrite.java.JavaParser;
+import org.openrewrite.java.marker.JavaProject;
+import org.openrewrite.java.marker.JavaSourceSet;
+import org.openrewrite.marker.Markers;
+import org.openrewrite.maven.tree.GroupArtifact;
+import org.openrewrite.text.PlainText;
+import reisners.openrewrite.UnusedDependencies;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UsageCollectorsTest {
+
+    @Test
+    void discoversBuiltInCollectors() {
+        assertThat(UsageCollectors.all())
+          .hasAtLeastOneElementOfType(ServiceLoaderUsageCollector.class)
+          .hasAtLeastOneElementOfType(SpringAutoConfigurationUsageCollector.class);
+    }
+
+    @Test
+    void collectsServiceTypeAndProviders() {
+        assertThat(collect(new ServiceLoaderUsageCollector(), "src/main/resources/META-INF/services/org.slf4j.spi.SLF4JServiceProvider",
+          """
+            # the provider
+            com.example.LoggingProvider # trailing comment
+            com.example.OtherProvider
+            """))
+          .containsExactly("org.slf4j.spi.SLF4JServiceProvider", "com.example.LoggingProvider", "com.example.OtherProvider");
+        assertThat(new ServiceLoaderUsageCollector().accepts(text("src/main/resources/META-INF/services/nested/file", ""))).isFalse();
+    }
+
+    @Test
+    void collectsSpringFactoriesAndImports() {
+        assertThat(collect(new SpringAutoConfigurationUsageCollector(), "src/main/resources/META-INF/spring.factories",
+          """
+            # Auto Configure
+            org.springframework.boot.autoconfigure.EnableAutoConfiguration=\\
+              com.example.FirstAutoConfiguration,\\
+              com.example.SecondAutoConfiguration
+            """))
+          .containsExactly("org.springframework.boot.autoconfigure.EnableAutoConfiguration",
+            "com.example.FirstAutoConfiguration", "com.example.SecondAutoConfiguration");
+        assertThat(collect(new SpringAutoConfigurationUsageCollector(),
+          "src/main/resources/META-INF/spring/org.springframework.boot.autoconfigure.AutoConfiguration.imports",
+          """
+            com.example.FirstAutoConfiguration
+            """))
+          .containsExactly("org.springframework.boot.autoconfigure.AutoConfiguration", "com.example.FirstAutoConfiguration");
+    }
+
+    @Test
+    void recordsCollectedTypesInAccumulator() {
+        JavaProject project = new JavaProject(Tree.randomId(), "project", null);
+        JavaSourceSet main = JavaSourceSet.build("main", JavaParser.dependenciesFromClasspath("slf4j-api"));
+        SourceFile services = text("src/main/resources/META-INF/services/org.slf4j.ILoggerFactory", "com.example.LoggerFactory");
+        UnusedDependencies.Accumulator acc = new UnusedDependencies.Accumulator();
+
+        acc.recordCollectedTypes(services.withMarkers(Markers.build(List.of(project, main))), UsageCollectors.all());
+
+        assertThat(acc.isInUse(project, "main", new GroupArtifact("org.slf4j", "slf4j-api"))).isTrue();
+    }
+
+    private static List<String> collect(UsageCollector collector, String path, String text) {
+        SourceFile sourceFile = text(path, text);
+        assertThat(collector.accepts(sourceFile)).isTrue();
+        List<String> types = new ArrayList<>();
+        collector.collect(sourceFile, types::add);
+        return types;
+    }
+
+    private static PlainText text(String path, String text) {
+        return PlainText.builder().sourcePath(Paths.get(path)).text(text).build();
+    }
+}